@@ -0,0 +1,84 @@
+package org.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replaces files so that a crash never leaves them half written.
+ * The new content goes to a temporary file in the same directory, is forced to disk,
+ * and is then renamed over the original in one step. Readers see either the old or the
+ * new file, never a mix. Where the platform allows it the directory is forced to disk
+ * as well, so the rename itself survives a power loss.
+ */
+public class AtomicFileWriter {
+
+    private AtomicFileWriter() {
+    }
+
+    /**
+     * Atomically replaces a file with the given text.
+     *
+     * @param target The file to replace or create
+     * @param content The new content, written as UTF-8
+     * @throws IOException If the content cannot be written or the file cannot be replaced;
+     *                     the original file is left untouched
+     */
+    static void write(Path target, String content) throws IOException {
+        write(target, ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Atomically replaces a file with the given bytes.
+     *
+     * @param target The file to replace or create
+     * @param content The new content, from its position to its limit
+     * @throws IOException If the content cannot be written or the file cannot be replaced;
+     *                     the original file is left untouched
+     */
+    static void write(Path target, ByteBuffer content) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+                channel.force(true);
+            }
+
+            try {
+                Files.move(temporary, target,
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                // Fall back to a plain replace on file systems that cannot rename atomically
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            forceDirectory(directory);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Forces a directory's entries to disk, so a rename in it is durable.
+     * Some platforms, Windows among them, cannot open a directory; the file content is
+     * already on disk then and the rename is left to the file system.
+     *
+     * @param directory The directory
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            // Not supported here; the replace itself has already succeeded
+        }
+    }
+}
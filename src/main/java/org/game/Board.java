@@ -0,0 +1,475 @@
+package org.game;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Primitive model of a puzzle board.
+ * Cells are stored row-major in flat arrays, and every row, column and region keeps a
+ * bitmask of the digits placed in it, so moves and candidate lookups allocate nothing.
+ * Per-unit digit counters and a running conflict count make the solved check O(1).
+ * Cells holding a digit that repeats in one of their units are flagged as conflicting,
+ * and a listener is told whenever a cell's flag changes.
+ * Units are numbered rows first, then columns, then regions.
+ */
+public class Board {
+
+    /**
+     * Receives changes to the conflict state of individual cells.
+     */
+    interface ConflictListener {
+        /**
+         * Called when a cell starts or stops repeating a digit in its row, column or region.
+         *
+         * @param index The cell index
+         * @param conflicting Whether the cell is now in conflict
+         */
+        void conflictChanged(int index, boolean conflicting);
+    }
+
+    /** Largest board whose digits still fit in an int bitmask. */
+    static final int MAX_SIZE = 31;
+
+    final int size;
+    final int cellCount;
+    final int fullMask;
+    final int[] cells;
+    final byte[] regions;
+    final boolean[] fixed;
+    final int[] unitMasks;
+    final byte[] unitCounts;
+    final int[][] unitCells;
+    final boolean[] conflicting;
+    int filledCount;
+    int conflictCount;
+    ConflictListener conflictListener;
+
+    /**
+     * Constructs an empty board with the given region layout.
+     *
+     * @param size The board size N (the board has N x N cells and N regions)
+     * @param regions Region id of every cell in row-major order
+     */
+    Board(int size, byte[] regions) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported board size: " + size);
+        }
+        if (regions.length != size * size) {
+            throw new IllegalArgumentException("Expected " + size * size + " region ids");
+        }
+        this.size = size;
+        this.cellCount = size * size;
+        this.fullMask = (int) ((1L << size) - 1);
+        this.cells = new int[cellCount];
+        this.regions = regions;
+        this.fixed = new boolean[cellCount];
+        this.unitMasks = new int[3 * size];
+        this.unitCounts = new byte[3 * size * (size + 1)];
+        this.unitCells = buildUnitCells(size, regions);
+        this.conflicting = new boolean[cellCount];
+    }
+
+    /**
+     * Constructs a copy of another board.
+     * The region layout is immutable and shared; cells and counters are copied.
+     *
+     * @param other The board to copy
+     */
+    private Board(Board other) {
+        this.size = other.size;
+        this.cellCount = other.cellCount;
+        this.fullMask = other.fullMask;
+        this.cells = other.cells.clone();
+        this.regions = other.regions;
+        this.fixed = other.fixed.clone();
+        this.unitMasks = other.unitMasks.clone();
+        this.unitCounts = other.unitCounts.clone();
+        this.unitCells = other.unitCells;
+        this.conflicting = other.conflicting.clone();
+        this.filledCount = other.filledCount;
+        this.conflictCount = other.conflictCount;
+    }
+
+    /**
+     * Creates an independent copy of this board, for example to hand to another thread.
+     * The copy has no conflict listener.
+     *
+     * @return A board with the same cells, clues and counters
+     */
+    Board copy() {
+        return new Board(this);
+    }
+
+    /**
+     * Creates a board from an entry in the level JSON schema.
+     * Only the cells marked in "fixed" are placed; the remaining tiles are left empty.
+     *
+     * @param levelData The level entry containing "size", "tiles", "fixed" and "regions"
+     * @return A board holding the clues of the level
+     */
+    static Board fromJson(JSONObject levelData) {
+        int size = levelData.getInt("size");
+        int[] tiles = readGrid(levelData.getJSONArray("tiles"), size);
+        int[] fixedMask = readGrid(levelData.getJSONArray("fixed"), size);
+        int[] regionIds = readGrid(levelData.getJSONArray("regions"), size);
+
+        byte[] regions = new byte[regionIds.length];
+        for (int i = 0; i < regionIds.length; i++) {
+            if (regionIds[i] < 0 || regionIds[i] >= size) {
+                throw new IllegalArgumentException("Region id out of range at cell " + i);
+            }
+            regions[i] = (byte) regionIds[i];
+        }
+
+        Board board = new Board(size, regions);
+        for (int i = 0; i < tiles.length; i++) {
+            if (fixedMask[i] == 1 && tiles[i] != 0) {
+                board.place(i, tiles[i]);
+                board.fixed[i] = true;
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Converts this board back to the level JSON schema.
+     * The current cells are written as "tiles" and the clue cells as "fixed".
+     *
+     * @return A JSON object with "size", "tiles", "fixed" and "regions"
+     */
+    JSONObject toJson() {
+        int[] fixedMask = new int[cellCount];
+        int[] regionIds = new int[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            fixedMask[i] = fixed[i] ? 1 : 0;
+            regionIds[i] = regions[i];
+        }
+
+        JSONObject levelData = new JSONObject();
+        levelData.put("size", size);
+        levelData.put("tiles", toGrid(cells, size));
+        levelData.put("fixed", toGrid(fixedMask, size));
+        levelData.put("regions", toGrid(regionIds, size));
+        return levelData;
+    }
+
+    /**
+     * Reads an N x N JSON grid into a flat row-major array.
+     *
+     * @param grid The JSON array of rows
+     * @param size The expected board size
+     * @return The grid values in row-major order
+     */
+    static int[] readGrid(JSONArray grid, int size) {
+        if (grid.length() != size) {
+            throw new IllegalArgumentException("Expected " + size + " rows, found " + grid.length());
+        }
+        int[] values = new int[size * size];
+        for (int row = 0; row < size; row++) {
+            JSONArray rowData = grid.getJSONArray(row);
+            if (rowData.length() != size) {
+                throw new IllegalArgumentException("Row " + row + " does not have " + size + " cells");
+            }
+            for (int col = 0; col < size; col++) {
+                values[row * size + col] = rowData.getInt(col);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Writes a flat row-major array as an N x N JSON grid.
+     *
+     * @param values The values in row-major order
+     * @param size The board size
+     * @return The JSON array of rows
+     */
+    static JSONArray toGrid(int[] values, int size) {
+        JSONArray grid = new JSONArray();
+        for (int row = 0; row < size; row++) {
+            JSONArray rowData = new JSONArray();
+            for (int col = 0; col < size; col++) {
+                rowData.put(values[row * size + col]);
+            }
+            grid.put(rowData);
+        }
+        return grid;
+    }
+
+    /**
+     * Converts a row and column into a flat cell index.
+     *
+     * @param row The row of the cell
+     * @param col The column of the cell
+     * @return The row-major cell index
+     */
+    int index(int row, int col) {
+        return row * size + col;
+    }
+
+    /**
+     * Returns the digit in a cell.
+     *
+     * @param index The cell index
+     * @return The digit, or 0 if the cell is empty
+     */
+    int get(int index) {
+        return cells[index];
+    }
+
+    /**
+     * Checks whether a cell is a clue of the puzzle.
+     *
+     * @param index The cell index
+     * @return true if the cell was given by the level and cannot be changed
+     */
+    boolean isFixed(int index) {
+        return fixed[index];
+    }
+
+    /**
+     * Returns the digits that can still be placed in a cell without repeating a digit
+     * in its row, column or region.
+     *
+     * @param index The cell index
+     * @return Bitmask of candidates, where bit d-1 stands for digit d
+     */
+    int candidates(int index) {
+        return fullMask & ~(unitMasks[index / size]
+                | unitMasks[size + index % size]
+                | unitMasks[2 * size + regions[index]]);
+    }
+
+    /**
+     * Places a digit in a cell, replacing whatever was there.
+     *
+     * @param index The cell index
+     * @param digit The digit to place (1 to N)
+     */
+    void place(int index, int digit) {
+        if (digit < 1 || digit > size) {
+            throw new IllegalArgumentException("Digit out of range: " + digit);
+        }
+        if (cells[index] != 0) {
+            clear(index);
+        }
+        cells[index] = digit;
+        filledCount++;
+
+        int rowUnit = index / size;
+        int colUnit = size + index % size;
+        int regionUnit = 2 * size + regions[index];
+        int rowCount = addDigit(rowUnit, digit);
+        int colCount = addDigit(colUnit, digit);
+        int regionCount = addDigit(regionUnit, digit);
+
+        // A unit's first duplicate also puts the cell that already held the digit in conflict
+        if (rowCount == 2) {
+            refreshConflicts(rowUnit, digit);
+        }
+        if (colCount == 2) {
+            refreshConflicts(colUnit, digit);
+        }
+        if (regionCount == 2) {
+            refreshConflicts(regionUnit, digit);
+        }
+        updateConflict(index);
+    }
+
+    /**
+     * Removes the digit from a cell. Does nothing if the cell is already empty.
+     *
+     * @param index The cell index
+     */
+    void clear(int index) {
+        int digit = cells[index];
+        if (digit == 0) {
+            return;
+        }
+        cells[index] = 0;
+        filledCount--;
+
+        int rowUnit = index / size;
+        int colUnit = size + index % size;
+        int regionUnit = 2 * size + regions[index];
+        int rowCount = removeDigit(rowUnit, digit);
+        int colCount = removeDigit(colUnit, digit);
+        int regionCount = removeDigit(regionUnit, digit);
+
+        // The last remaining copy of a digit in a unit may no longer be in conflict
+        updateConflict(index);
+        if (rowCount == 1) {
+            refreshConflicts(rowUnit, digit);
+        }
+        if (colCount == 1) {
+            refreshConflicts(colUnit, digit);
+        }
+        if (regionCount == 1) {
+            refreshConflicts(regionUnit, digit);
+        }
+    }
+
+    /**
+     * Re-evaluates the conflict state of every cell in a unit holding a digit.
+     * Only called when the digit's count in the unit crosses between one and two.
+     *
+     * @param unit The unit index
+     * @param digit The digit whose cells to re-evaluate
+     */
+    private void refreshConflicts(int unit, int digit) {
+        for (int cell : unitCells[unit]) {
+            if (cells[cell] == digit) {
+                updateConflict(cell);
+            }
+        }
+    }
+
+    /**
+     * Recomputes whether a cell is in conflict and notifies the listener if that changed.
+     *
+     * @param index The cell index
+     */
+    private void updateConflict(int index) {
+        int digit = cells[index];
+        boolean inConflict = digit != 0
+                && (count(index / size, digit) > 1
+                || count(size + index % size, digit) > 1
+                || count(2 * size + regions[index], digit) > 1);
+        if (inConflict != conflicting[index]) {
+            conflicting[index] = inConflict;
+            if (conflictListener != null) {
+                conflictListener.conflictChanged(index, inConflict);
+            }
+        }
+    }
+
+    /**
+     * Counts a placed digit in a unit, recording a conflict if the unit already had it.
+     *
+     * @param unit The unit index
+     * @param digit The digit that was placed
+     * @return The new count of the digit in the unit
+     */
+    private int addDigit(int unit, int digit) {
+        int count = ++unitCounts[unit * (size + 1) + digit];
+        if (count == 1) {
+            unitMasks[unit] |= 1 << (digit - 1);
+        } else {
+            conflictCount++;
+        }
+        return count;
+    }
+
+    /**
+     * Uncounts a removed digit in a unit, resolving a conflict if it was a duplicate.
+     *
+     * @param unit The unit index
+     * @param digit The digit that was removed
+     * @return The new count of the digit in the unit
+     */
+    private int removeDigit(int unit, int digit) {
+        int count = --unitCounts[unit * (size + 1) + digit];
+        if (count == 0) {
+            unitMasks[unit] &= ~(1 << (digit - 1));
+        } else {
+            conflictCount--;
+        }
+        return count;
+    }
+
+    /**
+     * Returns how many times a digit occurs in a unit.
+     *
+     * @param unit The unit index
+     * @param digit The digit to count
+     * @return The number of cells in the unit holding the digit
+     */
+    int count(int unit, int digit) {
+        return unitCounts[unit * (size + 1) + digit];
+    }
+
+    /**
+     * Checks whether every cell of the board holds a digit.
+     *
+     * @return true if the board is full
+     */
+    boolean isFull() {
+        return filledCount == cellCount;
+    }
+
+    /**
+     * Checks whether the board is completely and correctly filled.
+     *
+     * @return true if every cell is filled and no unit repeats a digit
+     */
+    boolean isSolved() {
+        return filledCount == cellCount && conflictCount == 0;
+    }
+
+    /**
+     * Counts the cells reachable from a cell without leaving its region.
+     *
+     * @param size The board size
+     * @param regionIds Region id of every cell
+     * @param start The cell to start from
+     * @return The number of connected cells in the same region
+     */
+    static int connectedRegionSize(int size, int[] regionIds, int start) {
+        int region = regionIds[start];
+        boolean[] visited = new boolean[regionIds.length];
+        int[] stack = new int[regionIds.length];
+        int top = 0;
+        int count = 0;
+        stack[top++] = start;
+        visited[start] = true;
+        while (top > 0) {
+            int cell = stack[--top];
+            count++;
+            int row = cell / size;
+            int col = cell % size;
+            int[] neighbours = {
+                    row > 0 ? cell - size : -1,
+                    row < size - 1 ? cell + size : -1,
+                    col > 0 ? cell - 1 : -1,
+                    col < size - 1 ? cell + 1 : -1
+            };
+            for (int next : neighbours) {
+                if (next >= 0 && !visited[next] && regionIds[next] == region) {
+                    visited[next] = true;
+                    stack[top++] = next;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Lists the cells of every row, column and region.
+     *
+     * @param size The board size
+     * @param regions Region id of every cell
+     * @return Cell indices per unit, rows first, then columns, then regions
+     */
+    private static int[][] buildUnitCells(int size, byte[] regions) {
+        int[][] units = new int[3 * size][];
+        int[] regionSizes = new int[size];
+        for (byte region : regions) {
+            regionSizes[region]++;
+        }
+        for (int i = 0; i < size; i++) {
+            units[i] = new int[size];
+            units[size + i] = new int[size];
+            units[2 * size + i] = new int[regionSizes[i]];
+        }
+
+        int[] regionFill = new int[size];
+        for (int index = 0; index < size * size; index++) {
+            int row = index / size;
+            int col = index % size;
+            units[row][col] = index;
+            units[size + col][row] = index;
+            units[2 * size + regions[index]][regionFill[regions[index]]++] = index;
+        }
+        return units;
+    }
+}
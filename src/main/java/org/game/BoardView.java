@@ -0,0 +1,229 @@
+package org.game;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.function.IntConsumer;
+import javax.swing.JComponent;
+
+/**
+ * Single component that draws a whole board: region fills, cell borders, conflict and
+ * hint highlights and the digits.
+ * Clicks are mapped to cells by arithmetic, and changes to a cell repaint only that
+ * cell's rectangle. Region colours come from the active theme each time a cell is
+ * painted, so a theme switch only needs a repaint.
+ */
+public class BoardView extends JComponent {
+    /** Cell labels indexed by digit, so painting a number does not build a new string. */
+    static final String[] DIGIT_LABELS = new String[Board.MAX_SIZE + 1];
+
+    static {
+        DIGIT_LABELS[0] = "";
+        for (int digit = 1; digit <= Board.MAX_SIZE; digit++) {
+            DIGIT_LABELS[digit] = String.valueOf(digit);
+        }
+    }
+
+    private static final Font DIGIT_FONT = new Font("Calibri", Font.PLAIN, 25);
+    private static final Color CONFLICT_COLOUR = Color.RED;
+    private static final Color HINT_COLOUR = Color.ORANGE;
+    private static final BasicStroke CONFLICT_STROKE = new BasicStroke(3);
+    private static final BasicStroke HINT_STROKE = new BasicStroke(4);
+
+    private final Board board;
+    private final Rectangle cellBounds = new Rectangle();
+    private int hintedCell = -1;
+    private Font digitFont;
+    private int digitFontCellSize;
+
+    /**
+     * Constructs a view of a board.
+     *
+     * @param board The board to draw
+     * @param onCellClicked Receives the index of every editable cell the player clicks
+     */
+    BoardView(Board board, IntConsumer onCellClicked) {
+        this.board = board;
+        setOpaque(true);
+        setDoubleBuffered(true);
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent mouseEvent) {
+                int cellIndex = cellAt(mouseEvent.getX(), mouseEvent.getY());
+                if (cellIndex >= 0 && !board.isFixed(cellIndex)) {
+                    onCellClicked.accept(cellIndex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Finds the cell under a point.
+     *
+     * @param x The x coordinate within the view
+     * @param y The y coordinate within the view
+     * @return The cell index, or -1 if the point is outside the board
+     */
+    int cellAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+            return -1;
+        }
+        return board.index(lineAt(y, getHeight()), lineAt(x, getWidth()));
+    }
+
+    /**
+     * Finds the row or column containing a pixel. This is the exact inverse of the
+     * rounding in {@link #cellBounds(int, Rectangle)}, so every pixel belongs to the cell
+     * that is painted over it.
+     *
+     * @param pixel The x or y coordinate, from 0 to length - 1
+     * @param length The width or height of the view
+     * @return The column or row index
+     */
+    private int lineAt(int pixel, int length) {
+        return ((pixel + 1) * board.size - 1) / length;
+    }
+
+    /**
+     * Computes the pixel bounds of a cell. Cell edges are rounded so the cells tile the
+     * view exactly even when its size is not a multiple of the board size.
+     *
+     * @param cellIndex The cell index
+     * @param bounds Receives the bounds
+     * @return The bounds
+     */
+    Rectangle cellBounds(int cellIndex, Rectangle bounds) {
+        int size = board.size;
+        int row = cellIndex / size;
+        int col = cellIndex % size;
+        int left = col * getWidth() / size;
+        int top = row * getHeight() / size;
+        bounds.setBounds(left, top, (col + 1) * getWidth() / size - left,
+                (row + 1) * getHeight() / size - top);
+        return bounds;
+    }
+
+    /**
+     * Schedules a repaint of one cell.
+     *
+     * @param cellIndex The cell index
+     */
+    void repaintCell(int cellIndex) {
+        Rectangle bounds = cellBounds(cellIndex, new Rectangle());
+        repaint(bounds.x, bounds.y, bounds.width, bounds.height);
+    }
+
+    /**
+     * Moves the hint highlight, repainting the cell it leaves and the cell it marks.
+     *
+     * @param cellIndex The cell to highlight, or -1 to remove the highlight
+     */
+    void setHintedCell(int cellIndex) {
+        int previous = hintedCell;
+        hintedCell = cellIndex;
+        if (previous >= 0) {
+            repaintCell(previous);
+        }
+        if (cellIndex >= 0) {
+            repaintCell(cellIndex);
+        }
+    }
+
+    /**
+     * Paints the cells that intersect the clip.
+     *
+     * @param g The Graphics context to paint on
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        int size = board.size;
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        // Only visit the rows and columns the clip touches
+        int firstRow = Math.max(0, lineAt(clip.y, getHeight()));
+        int lastRow = Math.min(size - 1, lineAt(clip.y + clip.height - 1, getHeight()));
+        int firstCol = Math.max(0, lineAt(clip.x, getWidth()));
+        int lastCol = Math.min(size - 1, lineAt(clip.x + clip.width - 1, getWidth()));
+
+        g2.setFont(digitFont(getWidth() / size));
+        FontMetrics metrics = g2.getFontMetrics();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                paintCell(g2, board.index(row, col), metrics);
+            }
+        }
+    }
+
+    /**
+     * Paints one cell: its region colour, border, highlight and digit.
+     *
+     * @param g2 The Graphics context
+     * @param cellIndex The cell index
+     * @param metrics Metrics of the digit font
+     */
+    private void paintCell(Graphics2D g2, int cellIndex, FontMetrics metrics) {
+        Rectangle bounds = cellBounds(cellIndex, cellBounds);
+        g2.setColor(ColourTheme.idToColour(board.regions[cellIndex]));
+        g2.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+
+        g2.setColor(Color.BLACK);
+        g2.drawRect(bounds.x, bounds.y, bounds.width - 1, bounds.height - 1);
+
+        // The hint highlight wins over the conflict highlight
+        if (cellIndex == hintedCell) {
+            drawHighlight(g2, bounds, HINT_COLOUR, HINT_STROKE);
+        } else if (board.conflicting[cellIndex]) {
+            drawHighlight(g2, bounds, CONFLICT_COLOUR, CONFLICT_STROKE);
+        }
+
+        int digit = board.get(cellIndex);
+        if (digit != 0) {
+            String label = DIGIT_LABELS[digit];
+            g2.setColor(board.isFixed(cellIndex) ? Color.BLACK : Color.WHITE);
+            g2.drawString(label,
+                    bounds.x + (bounds.width - metrics.stringWidth(label)) / 2,
+                    bounds.y + (bounds.height - metrics.getHeight()) / 2 + metrics.getAscent());
+        }
+    }
+
+    /**
+     * Draws a coloured frame just inside a cell.
+     *
+     * @param g2 The Graphics context
+     * @param bounds The cell bounds
+     * @param colour The frame colour
+     * @param stroke The frame stroke
+     */
+    private static void drawHighlight(Graphics2D g2, Rectangle bounds, Color colour, BasicStroke stroke) {
+        int inset = (int) stroke.getLineWidth() / 2;
+        Stroke previous = g2.getStroke();
+        g2.setColor(colour);
+        g2.setStroke(stroke);
+        g2.drawRect(bounds.x + inset, bounds.y + inset,
+                bounds.width - 2 * inset - 1, bounds.height - 2 * inset - 1);
+        g2.setStroke(previous);
+    }
+
+    /**
+     * Returns the digit font for a cell size, shrinking it on large boards so the
+     * digits fit. The derived font is kept until the cell size changes.
+     *
+     * @param cellSize The cell width in pixels
+     * @return The font
+     */
+    private Font digitFont(int cellSize) {
+        if (digitFont == null || digitFontCellSize != cellSize) {
+            float fontSize = Math.min(DIGIT_FONT.getSize2D(), cellSize * 0.6f);
+            digitFont = DIGIT_FONT.deriveFont(fontSize);
+            digitFontCellSize = cellSize;
+        }
+        return digitFont;
+    }
+}
@@ -0,0 +1,329 @@
+package org.game;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * Headless checker for level catalogs in the Levels.json schema.
+ * The catalog is streamed one entry at a time and the entries are verified on all cores.
+ * For every level it checks that the regions form N connected regions of N cells, that the
+ * stored tiles are a valid solution matching the fixed mask, and that the clues have
+ * exactly one solution. Each search stops as soon as a second solution turns up.
+ * Only Board and DancingLinksSolver are used, so no Swing classes are loaded.
+ */
+public class CatalogVerifier {
+
+    /**
+     * Outcome of verifying one level.
+     */
+    static final class Result {
+        final int position;
+        final String id;
+        final int size;
+        final int clueCount;
+        final int solutionCount;
+        final long elapsedNanos;
+        final List<String> issues;
+
+        Result(int position, String id, int size, int clueCount, int solutionCount,
+               long elapsedNanos, List<String> issues) {
+            this.position = position;
+            this.id = id;
+            this.size = size;
+            this.clueCount = clueCount;
+            this.solutionCount = solutionCount;
+            this.elapsedNanos = elapsedNanos;
+            this.issues = issues;
+        }
+
+        /**
+         * Checks whether the level passed every check.
+         *
+         * @return true if the level is valid and uniquely solvable
+         */
+        boolean isValid() {
+            return issues.isEmpty();
+        }
+
+        /**
+         * Formats the result as one tab-separated report line.
+         *
+         * @return The report line
+         */
+        String toReportLine() {
+            String solutions = solutionCount < 0 ? "-"
+                    : solutionCount >= 2 ? "2+" : String.valueOf(solutionCount);
+            return String.join("\t",
+                    String.valueOf(position),
+                    id,
+                    size > 0 ? size + "x" + size : "-",
+                    String.valueOf(clueCount),
+                    solutions,
+                    String.format("%.3f", elapsedNanos / 1e6),
+                    isValid() ? "OK" : "FAIL",
+                    String.join("; ", issues));
+        }
+    }
+
+    /**
+     * Verifies a single level entry.
+     *
+     * @param position The position of the entry in the catalog
+     * @param levelData The level entry
+     * @return The verification result
+     */
+    static Result verify(int position, JSONObject levelData) {
+        long start = System.nanoTime();
+        List<String> issues = new ArrayList<>();
+        String id = levelData.has("id") ? String.valueOf(levelData.get("id")) : "-";
+        int size = 0;
+        int clueCount = 0;
+        int solutionCount = -1;
+
+        try {
+            size = levelData.getInt("size");
+            int[] tiles = Board.readGrid(levelData.getJSONArray("tiles"), size);
+            int[] fixedMask = Board.readGrid(levelData.getJSONArray("fixed"), size);
+            int[] regionIds = Board.readGrid(levelData.getJSONArray("regions"), size);
+
+            checkRegions(size, regionIds, issues);
+            if (issues.isEmpty()) {
+                checkTiles(size, tiles, fixedMask, regionIds, issues);
+            }
+
+            if (issues.isEmpty()) {
+                Board clues = Board.fromJson(levelData);
+                clueCount = clues.filledCount;
+
+                // Two solutions are enough to prove the puzzle is not unique
+                int[][] firstSolution = new int[1][];
+                solutionCount = new DancingLinksSolver(clues).solve(2, solution -> {
+                    if (firstSolution[0] == null) {
+                        firstSolution[0] = solution;
+                    }
+                });
+
+                if (solutionCount == 0) {
+                    issues.add("clues have no solution");
+                } else if (solutionCount > 1) {
+                    issues.add("clues have more than one solution");
+                } else if (!Arrays.equals(firstSolution[0], tiles)) {
+                    issues.add("tiles differ from the unique solution");
+                }
+            }
+        } catch (RuntimeException ex) {
+            issues.add("malformed entry: " + ex.getMessage());
+        }
+
+        return new Result(position, id, size, clueCount, solutionCount,
+                System.nanoTime() - start, issues);
+    }
+
+    /**
+     * Checks that the region ids describe N connected regions of exactly N cells.
+     *
+     * @param size The board size
+     * @param regionIds Region id of every cell
+     * @param issues Receives a description of every problem found
+     */
+    private static void checkRegions(int size, int[] regionIds, List<String> issues) {
+        int[] regionSizes = new int[size];
+        int[] firstCell = new int[size];
+        for (int i = regionIds.length - 1; i >= 0; i--) {
+            if (regionIds[i] < 0 || regionIds[i] >= size) {
+                issues.add("region id " + regionIds[i] + " out of range at cell " + i);
+                return;
+            }
+            regionSizes[regionIds[i]]++;
+            firstCell[regionIds[i]] = i;
+        }
+
+        for (int region = 0; region < size; region++) {
+            if (regionSizes[region] != size) {
+                issues.add("region " + region + " has " + regionSizes[region] + " cells");
+            } else if (Board.connectedRegionSize(size, regionIds, firstCell[region]) != size) {
+                issues.add("region " + region + " is not connected");
+            }
+        }
+    }
+
+    /**
+     * Checks that the tiles are a complete, valid solution and agree with the fixed mask.
+     *
+     * @param size The board size
+     * @param tiles The stored tiles
+     * @param fixedMask The stored clue mask
+     * @param regionIds Region id of every cell
+     * @param issues Receives a description of every problem found
+     */
+    private static void checkTiles(int size, int[] tiles, int[] fixedMask, int[] regionIds,
+                                   List<String> issues) {
+        byte[] regions = new byte[regionIds.length];
+        for (int i = 0; i < regionIds.length; i++) {
+            regions[i] = (byte) regionIds[i];
+        }
+
+        Board solution = new Board(size, regions);
+        for (int i = 0; i < tiles.length; i++) {
+            int row = i / size;
+            int col = i % size;
+            if (fixedMask[i] != 0 && fixedMask[i] != 1) {
+                issues.add("fixed mask value " + fixedMask[i] + " at (" + row + "," + col + ")");
+            }
+            if (tiles[i] < 1 || tiles[i] > size) {
+                issues.add((fixedMask[i] == 1 ? "clue" : "tile") + " " + tiles[i]
+                        + " out of range at (" + row + "," + col + ")");
+            } else {
+                solution.place(i, tiles[i]);
+            }
+        }
+        if (solution.conflictCount > 0) {
+            issues.add("tiles repeat a digit in " + solution.conflictCount + " places");
+        }
+    }
+
+    /**
+     * Streams a catalog and verifies its entries on a pool of worker threads.
+     * Entries are read only as workers free up, and results are reported in catalog order.
+     *
+     * @param catalog Reader positioned at the start of the JSON array
+     * @param report Receives one line per level and a summary
+     * @param threads The number of worker threads
+     * @return The number of levels that failed verification
+     * @throws IOException If the report cannot be written
+     */
+    static int verifyCatalog(Reader catalog, PrintWriter report, int threads) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-verifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ArrayDeque<Future<Result>> pending = new ArrayDeque<>();
+        int maxPending = threads * 4;
+        int[] totals = new int[2];
+        long start = System.nanoTime();
+
+        report.println("#\tid\tsize\tclues\tsolutions\tms\tstatus\tissues");
+        try {
+            JSONTokener tokener = new JSONTokener(catalog);
+            if (tokener.nextClean() != '[') {
+                throw tokener.syntaxError("A level catalog must be a JSON array");
+            }
+
+            int position = 0;
+            char next = tokener.nextClean();
+            if (next != ']') {
+                tokener.back();
+                while (true) {
+                    Object entry = tokener.nextValue();
+                    int levelPosition = position++;
+                    if (entry instanceof JSONObject) {
+                        JSONObject levelData = (JSONObject) entry;
+                        pending.add(workers.submit(() -> verify(levelPosition, levelData)));
+                    } else {
+                        // Report the entry and go on with the rest of the catalog
+                        pending.add(CompletableFuture.completedFuture(new Result(levelPosition, "-", 0, 0, -1, 0,
+                                List.of("entry is not an object"))));
+                    }
+                    if (pending.size() >= maxPending) {
+                        writeResult(pending.poll(), report, totals);
+                    }
+
+                    next = tokener.nextClean();
+                    if (next == ']') {
+                        break;
+                    }
+                    if (next != ',') {
+                        throw tokener.syntaxError("Expected ',' or ']' between levels");
+                    }
+                }
+            }
+            while (!pending.isEmpty()) {
+                writeResult(pending.poll(), report, totals);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        report.printf("# %d levels, %d failed, %.1f ms on %d threads%n",
+                totals[0], totals[1], (System.nanoTime() - start) / 1e6, threads);
+        report.flush();
+        return totals[1];
+    }
+
+    /**
+     * Waits for a verification result and writes it to the report.
+     *
+     * @param result The pending result
+     * @param report The report writer
+     * @param totals Level and failure counters to update
+     * @throws IOException If the verification was interrupted
+     */
+    private static void writeResult(Future<Result> result, PrintWriter report, int[] totals)
+            throws IOException {
+        try {
+            Result levelResult = result.get();
+            report.println(levelResult.toReportLine());
+            totals[0]++;
+            if (!levelResult.isValid()) {
+                totals[1]++;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Verification interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Verification failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Verifies a catalog file and writes the report to a file or standard output.
+     * Exits with status 1 if any level fails.
+     * Usage: CatalogVerifier &lt;levels.json&gt; [report.tsv] [threads]
+     *
+     * @param args The catalog path, optionally the report path and the number of threads
+     * @throws IOException If the catalog cannot be read or the report cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: CatalogVerifier <levels.json> [report.tsv] [threads]");
+            return;
+        }
+        int threads = args.length > 2
+                ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        int failures;
+        try (BufferedReader catalog = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            if (args.length > 1) {
+                try (PrintWriter report = new PrintWriter(
+                        Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8))) {
+                    failures = verifyCatalog(catalog, report, threads);
+                }
+            } else {
+                // Standard output is only flushed, never closed, so later output is not lost
+                PrintWriter report = new PrintWriter(System.out);
+                failures = verifyCatalog(catalog, report, threads);
+                report.flush();
+            }
+        }
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+}
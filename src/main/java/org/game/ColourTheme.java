@@ -6,37 +6,149 @@ import java.awt.*;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+
+import static org.game.FileManager.getUserDataPath;
 
 /**
  * Utility class for managing color themes in the game.
  * Loads theme configurations from JSON files and maps region IDs to colours.
+ * Themes.json is decoded once, and the active theme is kept as a palette with a colour
+ * for every possible region id, so looking up a colour is a single array access.
  */
 public class ColourTheme {
 
+    /** Hue shift applied each time a theme's colours are reused for higher region ids. */
+    private static final float HUE_STEP = 0.12f;
+
+    private static Color[][] themes;
+    private static volatile Color[] palette;
+    private static int currentThemeId;
+
     /**
      * Converts a region ID to its corresponding colour based on the current theme.
-     * Loads the active theme from user preferences and returns the colour for the specified region.
      *
-     * @param regionId The ID of the region (0-based index into theme colours array)
+     * @param regionId The ID of the region, from 0 to Board.MAX_SIZE - 1
      * @return The Colour object corresponding to the region ID in the current theme
-     * @throws IOException If there's an error reading the theme or preferences files
      */
-    public static Color idToColour(int regionId) throws IOException {
-        // Load available themes
-        Path themesPath = Paths.get("src/main/resources/Themes.json");
-        String themesContent = Files.readString(themesPath, StandardCharsets.UTF_8);
-        JSONArray themes = new JSONArray(themesContent);
+    public static Color idToColour(int regionId) {
+        Color[] colours = palette;
+        if (colours == null) {
+            colours = loadPalette();
+        }
+        return colours[regionId];
+    }
+
+    /**
+     * Returns the active palette. Palettes are never modified once built, so the array
+     * can be read from any thread and keeps the colours of the theme that was active
+     * when it was taken.
+     *
+     * @return One colour per possible region id
+     */
+    static Color[] palette() {
+        Color[] colours = palette;
+        return colours != null ? colours : loadPalette();
+    }
+
+    /**
+     * Returns the number of available themes.
+     *
+     * @return The theme count
+     */
+    static synchronized int themeCount() {
+        loadThemes();
+        return themes.length;
+    }
 
-        // Load user preferences to get current theme
-        Path preferencesPath = Paths.get("src/main/resources/Preferences.json");
-        String preferencesContent = Files.readString(preferencesPath, StandardCharsets.UTF_8);
-        JSONArray preferences = new JSONArray(preferencesContent);
-        int currentThemeId = preferences.getJSONObject(0).getInt("theme");
+    /**
+     * Returns the id of the active theme.
+     *
+     * @return The theme id
+     */
+    static synchronized int currentThemeId() {
+        loadPalette();
+        return currentThemeId;
+    }
 
-        // Get colors array for the current theme
-        JSONArray themeColours = themes.getJSONObject(currentThemeId).getJSONArray("colours");
-        return Color.decode(themeColours.getString(regionId));
+    /**
+     * Makes a theme the active one by rebuilding the palette.
+     *
+     * @param themeId The theme id; ids out of range select the first theme
+     */
+    static synchronized void switchTheme(int themeId) {
+        loadThemes();
+        currentThemeId = themeId >= 0 && themeId < themes.length ? themeId : 0;
+        palette = expand(themes[currentThemeId]);
+    }
+
+    /**
+     * Builds the palette of the theme chosen in the user preferences, unless it exists.
+     *
+     * @return The active palette
+     */
+    private static synchronized Color[] loadPalette() {
+        if (palette == null) {
+            switchTheme(PreferencesStore.get().getInt("theme"));
+        }
+        return palette;
+    }
+
+    /**
+     * Decodes all themes from the user's Themes.json, unless already decoded.
+     * An unreadable file leaves a single grey theme so the board can still be drawn.
+     */
+    private static void loadThemes() {
+        if (themes != null) {
+            return;
+        }
+        try {
+            String themesContent = Files.readString(getUserDataPath("Themes.json"), StandardCharsets.UTF_8);
+            JSONArray themesArray = new JSONArray(themesContent);
+            themes = new Color[themesArray.length()][];
+            for (int i = 0; i < themes.length; i++) {
+                JSONArray themeColours = themesArray.getJSONObject(i).getJSONArray("colours");
+                themes[i] = new Color[themeColours.length()];
+                for (int j = 0; j < themes[i].length; j++) {
+                    themes[i][j] = Color.decode(themeColours.getString(j));
+                }
+                // A theme without colours could not fill any region
+                if (themes[i].length == 0) {
+                    System.err.println("Theme " + i + " in Themes.json has no colours, using grey");
+                    themes[i] = new Color[]{Color.LIGHT_GRAY};
+                }
+            }
+            if (themes.length == 0) {
+                themes = new Color[][]{{Color.LIGHT_GRAY}};
+            }
+        } catch (IOException | RuntimeException ex) {
+            ex.printStackTrace();
+            themes = new Color[][]{{Color.LIGHT_GRAY}};
+        }
+    }
+
+    /**
+     * Extends a theme's colours to one colour per possible region id.
+     * Once the theme's own colours run out they are repeated with a shifted hue and
+     * brightness, so large boards still get distinguishable regions.
+     *
+     * @param themeColours The colours defined by the theme
+     * @return A palette of Board.MAX_SIZE colours
+     */
+    private static Color[] expand(Color[] themeColours) {
+        Color[] colours = new Color[Board.MAX_SIZE];
+        float[] hsb = new float[3];
+        for (int regionId = 0; regionId < colours.length; regionId++) {
+            Color base = themeColours[regionId % themeColours.length];
+            int round = regionId / themeColours.length;
+            if (round == 0) {
+                colours[regionId] = base;
+            } else {
+                // Alternate darker and lighter as well, for themes with little saturation
+                Color.RGBtoHSB(base.getRed(), base.getGreen(), base.getBlue(), hsb);
+                float brightness = round % 2 == 1 ? hsb[2] * 0.75f : Math.min(1f, hsb[2] * 1.15f + 0.1f);
+                colours[regionId] = Color.getHSBColor(hsb[0] + round * HUE_STEP, hsb[1], brightness);
+            }
+        }
+        return colours;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,300 @@
+package org.game;
+
+import java.util.function.Consumer;
+
+/**
+ * Exact-cover solver for puzzles with arbitrary regions, based on Knuth's Algorithm X
+ * with Dancing Links.
+ * Every empty cell, row-digit, column-digit and region-digit pair is a column of the
+ * cover matrix, and every candidate digit of an empty cell is a row covering four of them.
+ * Constraints already met by the clues are left out, so the matrix only holds what is
+ * still open. The links are kept in flat int arrays and restored after every search,
+ * so one solver can be searched any number of times.
+ */
+public class DancingLinksSolver {
+    private final int size;
+    private final int[] givens;
+
+    // Node links; node 0 is the root and the next nodes are the column headers
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    private final int[] column;
+    private final int[] candidate;
+    private final int[] columnSizes;
+
+    // First node of the row of each candidate id, or 0 if the candidate has no row
+    private final int[] rowOf;
+    private int nodeCount;
+
+    private final int[] chosen;
+    private final boolean contradiction;
+    private int limit;
+    private int solutionCount;
+    private Consumer<int[]> listener;
+    private long nodeLimit = Long.MAX_VALUE;
+    private long nodesLeft;
+
+    /**
+     * Constructs a solver for the clues currently placed on a board.
+     * Every non-empty cell of the board is treated as a given.
+     *
+     * @param board The board holding the clues and the region layout
+     */
+    DancingLinksSolver(Board board) {
+        this.size = board.size;
+        this.givens = board.cells.clone();
+        this.chosen = new int[board.cellCount];
+        this.contradiction = board.conflictCount > 0;
+
+        // Map each still-open constraint to a column of the matrix
+        int cellCount = board.cellCount;
+        int[] columnOf = new int[4 * cellCount];
+        int columns = 0;
+        for (int i = 0; i < cellCount; i++) {
+            columnOf[i] = board.get(i) == 0 ? ++columns : 0;
+        }
+        for (int unit = 0; unit < 3 * size; unit++) {
+            for (int digit = 1; digit <= size; digit++) {
+                int constraint = cellCount + unit * size + digit - 1;
+                columnOf[constraint] = board.count(unit, digit) == 0 ? ++columns : 0;
+            }
+        }
+        this.columnSizes = new int[columns + 1];
+        this.rowOf = new int[cellCount * size];
+
+        int capacity = columns + 1 + 4 * (cellCount - board.filledCount) * size;
+        left = new int[capacity];
+        right = new int[capacity];
+        up = new int[capacity];
+        down = new int[capacity];
+        column = new int[capacity];
+        candidate = new int[capacity];
+
+        // Link the root and the column headers into one horizontal ring
+        for (int header = 0; header <= columns; header++) {
+            left[header] = header == 0 ? columns : header - 1;
+            right[header] = header == columns ? 0 : header + 1;
+            up[header] = header;
+            down[header] = header;
+            column[header] = header;
+        }
+        nodeCount = columns + 1;
+
+        // Add one row per candidate digit of every empty cell
+        if (!contradiction) {
+            for (int i = 0; i < cellCount; i++) {
+                if (board.get(i) != 0) {
+                    continue;
+                }
+                int row = i / size;
+                int col = i % size;
+                int region = board.regions[i];
+                int candidates = board.candidates(i);
+                while (candidates != 0) {
+                    int digit = Integer.numberOfTrailingZeros(candidates) + 1;
+                    candidates &= candidates - 1;
+                    addRow(i * size + digit - 1,
+                            columnOf[i],
+                            columnOf[cellCount + row * size + digit - 1],
+                            columnOf[cellCount + (size + col) * size + digit - 1],
+                            columnOf[cellCount + (2 * size + region) * size + digit - 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends a matrix row covering the four given columns.
+     *
+     * @param candidateId The cell index times N plus the digit minus one
+     * @param columns The column headers covered by the row
+     */
+    private void addRow(int candidateId, int... columns) {
+        int first = nodeCount;
+        int last = first + columns.length - 1;
+        rowOf[candidateId] = first;
+        for (int k = 0; k < columns.length; k++) {
+            int node = nodeCount++;
+            int header = columns[k];
+
+            // Insert at the bottom of the column
+            column[node] = header;
+            candidate[node] = candidateId;
+            up[node] = up[header];
+            down[node] = header;
+            down[up[header]] = node;
+            up[header] = node;
+            columnSizes[header]++;
+
+            // Link into the row ring
+            left[node] = node == first ? last : node - 1;
+            right[node] = node == last ? first : node + 1;
+        }
+    }
+
+    /**
+     * Removes one candidate digit of an empty cell from the matrix, so that no solution
+     * found afterwards places that digit there. Does nothing if it was not a candidate
+     * or has already been excluded.
+     *
+     * @param cell The cell index
+     * @param digit The digit to rule out
+     */
+    void exclude(int cell, int digit) {
+        int candidateId = cell * size + digit - 1;
+        int row = rowOf[candidateId];
+        if (row == 0) {
+            return;
+        }
+        rowOf[candidateId] = 0;
+        for (int node = row; node < row + 4; node++) {
+            down[up[node]] = down[node];
+            up[down[node]] = up[node];
+            columnSizes[column[node]]--;
+        }
+    }
+
+    /**
+     * Limits how many search nodes a single solve call may visit.
+     * A search that runs out of nodes stops early; see {@link #isNodeLimitReached()}.
+     *
+     * @param maxNodes The maximum number of rows tried per solve call
+     */
+    void setNodeLimit(long maxNodes) {
+        this.nodeLimit = maxNodes;
+    }
+
+    /**
+     * Checks whether the last solve call stopped because it ran out of search nodes,
+     * in which case its solution count is only a lower bound.
+     *
+     * @return true if the node limit was reached
+     */
+    boolean isNodeLimitReached() {
+        return nodesLeft < 0;
+    }
+
+    /**
+     * Enumerates solutions of the puzzle.
+     *
+     * @param maxSolutions The search stops after this many solutions have been found
+     * @param onSolution Receives every solution as a filled grid in row-major order, may be null
+     * @return The number of solutions found, at most maxSolutions
+     */
+    int solve(int maxSolutions, Consumer<int[]> onSolution) {
+        if (contradiction || maxSolutions <= 0) {
+            return 0;
+        }
+        limit = maxSolutions;
+        listener = onSolution;
+        solutionCount = 0;
+        nodesLeft = nodeLimit;
+        search(0);
+        listener = null;
+        return solutionCount;
+    }
+
+    /**
+     * Counts the solutions of the puzzle up to a limit.
+     * A limit of 2 is enough to decide whether a puzzle has a unique solution.
+     *
+     * @param maxSolutions The search stops after this many solutions have been found
+     * @return The number of solutions found, at most maxSolutions
+     */
+    int countSolutions(int maxSolutions) {
+        return solve(maxSolutions, null);
+    }
+
+    /**
+     * Recursive Algorithm X step.
+     * Picks the open column with the fewest rows and tries each of them in turn.
+     *
+     * @param depth The number of rows chosen so far
+     */
+    private void search(int depth) {
+        if (right[0] == 0) {
+            solutionCount++;
+            if (listener != null) {
+                listener.accept(buildSolution(depth));
+            }
+            return;
+        }
+
+        // Choose the column with the fewest remaining rows
+        int best = right[0];
+        for (int header = right[best]; header != 0; header = right[header]) {
+            if (columnSizes[header] < columnSizes[best]) {
+                best = header;
+            }
+        }
+        if (columnSizes[best] == 0) {
+            return;
+        }
+
+        cover(best);
+        for (int node = down[best]; node != best && solutionCount < limit; node = down[node]) {
+            if (--nodesLeft < 0) {
+                break;
+            }
+            chosen[depth] = candidate[node];
+            for (int other = right[node]; other != node; other = right[other]) {
+                cover(column[other]);
+            }
+            search(depth + 1);
+            for (int other = left[node]; other != node; other = left[other]) {
+                uncover(column[other]);
+            }
+        }
+        uncover(best);
+    }
+
+    /**
+     * Removes a column and every row that intersects it from the matrix.
+     *
+     * @param header The column header node
+     */
+    private void cover(int header) {
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+        for (int row = down[header]; row != header; row = down[row]) {
+            for (int node = right[row]; node != row; node = right[node]) {
+                down[up[node]] = down[node];
+                up[down[node]] = up[node];
+                columnSizes[column[node]]--;
+            }
+        }
+    }
+
+    /**
+     * Restores a column removed by {@link #cover(int)}, in exactly the reverse order.
+     *
+     * @param header The column header node
+     */
+    private void uncover(int header) {
+        for (int row = up[header]; row != header; row = up[row]) {
+            for (int node = left[row]; node != row; node = left[node]) {
+                columnSizes[column[node]]++;
+                down[up[node]] = node;
+                up[down[node]] = node;
+            }
+        }
+        right[left[header]] = header;
+        left[right[header]] = header;
+    }
+
+    /**
+     * Combines the givens with the chosen candidates into a full grid.
+     *
+     * @param depth The number of chosen candidates
+     * @return The filled grid in row-major order
+     */
+    private int[] buildSolution(int depth) {
+        int[] solution = givens.clone();
+        for (int k = 0; k < depth; k++) {
+            solution[chosen[k] / size] = chosen[k] % size + 1;
+        }
+        return solution;
+    }
+}
@@ -0,0 +1,479 @@
+package org.game;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Rates puzzles by solving them with human techniques only.
+ * Candidates are kept as one bitmask per cell. The rater always applies the simplest
+ * technique that makes progress: singles first, then region-line intersections, then
+ * naked and hidden subsets. The puzzle's difficulty is set by the hardest technique it needs.
+ */
+public class DifficultyRater {
+
+    /**
+     * Solving techniques from simplest to hardest, with the difficulty each one implies.
+     */
+    enum Technique {
+        NAKED_SINGLE("naked single", "easy"),
+        HIDDEN_SINGLE("hidden single", "easy"),
+        INTERSECTION("region-line intersection", "medium"),
+        NAKED_SUBSET("naked subset", "hard"),
+        HIDDEN_SUBSET("hidden subset", "hard");
+
+        final String description;
+        final String difficulty;
+
+        Technique(String description, String difficulty) {
+            this.description = description;
+            this.difficulty = difficulty;
+        }
+    }
+
+    /** Difficulty of puzzles that the techniques above cannot finish. */
+    static final String UNSOLVABLE_DIFFICULTY = "expert";
+
+    /** Largest subset size searched for naked and hidden subsets. */
+    private static final int MAX_SUBSET_SIZE = 3;
+
+    final Board board;
+    final int[] candidates;
+    private final int size;
+
+    // Cell of the most recent placement, or -1 before the first one
+    int lastPlacedCell = -1;
+
+    /**
+     * Constructs a rater working on a copy of a puzzle.
+     *
+     * @param puzzle The board holding the clues
+     */
+    DifficultyRater(Board puzzle) {
+        this.board = puzzle.copy();
+        this.size = board.size;
+        this.candidates = new int[board.cellCount];
+        for (int i = 0; i < board.cellCount; i++) {
+            candidates[i] = board.get(i) == 0 ? board.candidates(i) : 0;
+        }
+    }
+
+    /**
+     * Rates a puzzle.
+     *
+     * @param puzzle The board holding the clues
+     * @return The difficulty string for the level's "difficulty" field
+     */
+    static String rate(Board puzzle) {
+        DifficultyRater rater = new DifficultyRater(puzzle);
+        Technique hardest = Technique.NAKED_SINGLE;
+        while (!rater.board.isFull()) {
+            Technique used = rater.step();
+            if (used == null) {
+                return UNSOLVABLE_DIFFICULTY;
+            }
+            if (used.ordinal() > hardest.ordinal()) {
+                hardest = used;
+            }
+        }
+        return hardest.difficulty;
+    }
+
+    /**
+     * Applies the simplest technique that makes progress.
+     *
+     * @return The technique applied, or null if none applies
+     */
+    Technique step() {
+        if (findNakedSingle()) {
+            return Technique.NAKED_SINGLE;
+        }
+        if (findHiddenSingle()) {
+            return Technique.HIDDEN_SINGLE;
+        }
+        if (findIntersection()) {
+            return Technique.INTERSECTION;
+        }
+        for (int subsetSize = 2; subsetSize <= MAX_SUBSET_SIZE; subsetSize++) {
+            if (findNakedSubset(subsetSize)) {
+                return Technique.NAKED_SUBSET;
+            }
+            if (findHiddenSubset(subsetSize)) {
+                return Technique.HIDDEN_SUBSET;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Places a digit and removes it from the candidates of every peer.
+     *
+     * @param cell The cell index
+     * @param digit The digit to place
+     */
+    void place(int cell, int digit) {
+        board.place(cell, digit);
+        candidates[cell] = 0;
+        lastPlacedCell = cell;
+
+        int bit = 1 << (digit - 1);
+        eliminate(board.unitCells[cell / size], bit);
+        eliminate(board.unitCells[size + cell % size], bit);
+        eliminate(board.unitCells[2 * size + board.regions[cell]], bit);
+    }
+
+    /**
+     * Removes candidates from a group of cells.
+     *
+     * @param cells The cells to update
+     * @param mask The candidates to remove
+     * @return true if any candidate was removed
+     */
+    private boolean eliminate(int[] cells, int mask) {
+        boolean changed = false;
+        for (int cell : cells) {
+            if ((candidates[cell] & mask) != 0) {
+                candidates[cell] &= ~mask;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Places the digit of a cell that has only one candidate left.
+     *
+     * @return true if a digit was placed
+     */
+    private boolean findNakedSingle() {
+        for (int cell = 0; cell < board.cellCount; cell++) {
+            int mask = candidates[cell];
+            if (mask != 0 && (mask & (mask - 1)) == 0) {
+                place(cell, Integer.numberOfTrailingZeros(mask) + 1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Places a digit that has only one possible cell left in some unit.
+     *
+     * @return true if a digit was placed
+     */
+    private boolean findHiddenSingle() {
+        for (int[] unit : board.unitCells) {
+            int once = 0;
+            int twice = 0;
+            for (int cell : unit) {
+                twice |= once & candidates[cell];
+                once |= candidates[cell];
+            }
+            int singles = once & ~twice;
+            if (singles == 0) {
+                continue;
+            }
+            int bit = singles & -singles;
+            for (int cell : unit) {
+                if ((candidates[cell] & bit) != 0) {
+                    place(cell, Integer.numberOfTrailingZeros(bit) + 1);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies pointing and claiming eliminations.
+     * If a digit's candidates in a region all lie in one row or column, the digit is removed
+     * from the rest of that line, and if a digit's candidates in a line all lie in one
+     * region, the digit is removed from the rest of that region.
+     *
+     * @return true if any candidate was removed
+     */
+    private boolean findIntersection() {
+        for (int unit = 0; unit < 3 * size; unit++) {
+            boolean isRegion = unit >= 2 * size;
+            int[] cells = board.unitCells[unit];
+            for (int digit = 1; digit <= size; digit++) {
+                int bit = 1 << (digit - 1);
+                int rowOf = -1;
+                int colOf = -1;
+                int regionOf = -1;
+                boolean sameRow = true;
+                boolean sameCol = true;
+                boolean sameRegion = true;
+                boolean found = false;
+                for (int cell : cells) {
+                    if ((candidates[cell] & bit) == 0) {
+                        continue;
+                    }
+                    int row = cell / size;
+                    int col = cell % size;
+                    int region = board.regions[cell];
+                    if (!found) {
+                        rowOf = row;
+                        colOf = col;
+                        regionOf = region;
+                        found = true;
+                    } else {
+                        sameRow &= row == rowOf;
+                        sameCol &= col == colOf;
+                        sameRegion &= region == regionOf;
+                    }
+                }
+                if (!found) {
+                    continue;
+                }
+
+                if (isRegion) {
+                    if (sameRow && eliminateOutside(board.unitCells[rowOf], bit, unit)) {
+                        return true;
+                    }
+                    if (sameCol && eliminateOutside(board.unitCells[size + colOf], bit, unit)) {
+                        return true;
+                    }
+                } else if (sameRegion
+                        && eliminateOutside(board.unitCells[2 * size + regionOf], bit, unit)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a candidate from the cells of one unit that do not belong to another unit.
+     *
+     * @param cells The cells to update
+     * @param bit The candidate to remove
+     * @param keepUnit The unit whose cells are left alone
+     * @return true if any candidate was removed
+     */
+    private boolean eliminateOutside(int[] cells, int bit, int keepUnit) {
+        boolean changed = false;
+        for (int cell : cells) {
+            if ((candidates[cell] & bit) != 0 && !inUnit(cell, keepUnit)) {
+                candidates[cell] &= ~bit;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Checks whether a cell belongs to a unit.
+     *
+     * @param cell The cell index
+     * @param unit The unit index
+     * @return true if the cell is part of the unit
+     */
+    private boolean inUnit(int cell, int unit) {
+        if (unit < size) {
+            return cell / size == unit;
+        }
+        if (unit < 2 * size) {
+            return cell % size == unit - size;
+        }
+        return board.regions[cell] == unit - 2 * size;
+    }
+
+    /**
+     * Finds k cells of a unit whose candidates together are exactly k digits, and removes
+     * those digits from the other cells of the unit.
+     *
+     * @param subsetSize The number of cells k
+     * @return true if any candidate was removed
+     */
+    private boolean findNakedSubset(int subsetSize) {
+        int[] open = new int[size];
+        for (int[] unit : board.unitCells) {
+            int openCount = 0;
+            for (int cell : unit) {
+                int count = Integer.bitCount(candidates[cell]);
+                if (count >= 2 && count <= subsetSize) {
+                    open[openCount++] = cell;
+                }
+            }
+            if (openCount >= subsetSize
+                    && searchNakedSubset(unit, open, openCount, 0, subsetSize, 0, 0L)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Recursively picks cells for a naked subset.
+     *
+     * @param unit The unit being searched
+     * @param open Cells of the unit with between 2 and k candidates
+     * @param openCount The number of entries in open
+     * @param from The first entry of open that may still be picked
+     * @param remaining How many more cells to pick
+     * @param union The candidates of the cells picked so far
+     * @param picked Bit i set if open[i] was picked
+     * @return true if a subset was found and made progress
+     */
+    private boolean searchNakedSubset(int[] unit, int[] open, int openCount, int from,
+                                      int remaining, int union, long picked) {
+        if (Integer.bitCount(union) > Long.bitCount(picked) + remaining) {
+            return false;
+        }
+        if (remaining == 0) {
+            boolean changed = false;
+            for (int cell : unit) {
+                if (candidates[cell] != 0 && !isPicked(cell, open, openCount, picked)
+                        && (candidates[cell] & union) != 0) {
+                    candidates[cell] &= ~union;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+        for (int i = from; i <= openCount - remaining; i++) {
+            if (searchNakedSubset(unit, open, openCount, i + 1, remaining - 1,
+                    union | candidates[open[i]], picked | 1L << i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a cell was picked for the current subset.
+     *
+     * @param cell The cell index
+     * @param open The cells that may be picked
+     * @param openCount The number of entries in open
+     * @param picked Bit i set if open[i] was picked
+     * @return true if the cell is part of the subset
+     */
+    private static boolean isPicked(int cell, int[] open, int openCount, long picked) {
+        for (int i = 0; i < openCount; i++) {
+            if (open[i] == cell) {
+                return (picked & 1L << i) != 0;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds k digits that fit in only the same k cells of a unit, and removes every other
+     * candidate from those cells.
+     *
+     * @param subsetSize The number of digits k
+     * @return true if any candidate was removed
+     */
+    private boolean findHiddenSubset(int subsetSize) {
+        int[] positions = new int[size + 1];
+        int[] digits = new int[size];
+        for (int[] unit : board.unitCells) {
+            // Positions of each digit within the unit, as a bitmask over the unit's cells
+            int digitCount = 0;
+            for (int digit = 1; digit <= size; digit++) {
+                int bit = 1 << (digit - 1);
+                int mask = 0;
+                for (int k = 0; k < unit.length; k++) {
+                    if ((candidates[unit[k]] & bit) != 0) {
+                        mask |= 1 << k;
+                    }
+                }
+                positions[digit] = mask;
+                int count = Integer.bitCount(mask);
+                if (count >= 2 && count <= subsetSize) {
+                    digits[digitCount++] = digit;
+                }
+            }
+            if (digitCount >= subsetSize
+                    && searchHiddenSubset(unit, positions, digits, digitCount, 0, subsetSize, 0, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Recursively picks digits for a hidden subset.
+     *
+     * @param unit The unit being searched
+     * @param positions Position bitmask of every digit in the unit
+     * @param digits Digits with between 2 and k positions
+     * @param digitCount The number of entries in digits
+     * @param from The first entry of digits that may still be picked
+     * @param remaining How many more digits to pick
+     * @param cellUnion The positions of the digits picked so far
+     * @param digitMask The digits picked so far
+     * @return true if a subset was found and made progress
+     */
+    private boolean searchHiddenSubset(int[] unit, int[] positions, int[] digits, int digitCount,
+                                       int from, int remaining, int cellUnion, int digitMask) {
+        if (Integer.bitCount(cellUnion) > Integer.bitCount(digitMask) + remaining) {
+            return false;
+        }
+        if (remaining == 0) {
+            boolean changed = false;
+            for (int k = 0; k < unit.length; k++) {
+                int cell = unit[k];
+                if ((cellUnion & 1 << k) != 0 && (candidates[cell] & ~digitMask) != 0) {
+                    candidates[cell] &= digitMask;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+        for (int i = from; i <= digitCount - remaining; i++) {
+            int digit = digits[i];
+            if (searchHiddenSubset(unit, positions, digits, digitCount, i + 1, remaining - 1,
+                    cellUnion | positions[digit], digitMask | 1 << (digit - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rates every level of a catalog and fills in its "difficulty" field.
+     * Prints each rating and the total time on standard error. Ratings that differ from
+     * a level's existing label are marked, so authored labels are never replaced
+     * without notice.
+     * Usage: DifficultyRater &lt;levels.json&gt; [output.json]
+     *
+     * @param args The catalog path and optionally the output path; without an output path
+     *             the rated catalog is printed to standard output
+     * @throws IOException If the catalog cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: DifficultyRater <levels.json> [output.json]");
+            return;
+        }
+        String levelsContent = Files.readString(Paths.get(args[0]), StandardCharsets.UTF_8);
+        JSONArray levelsArray = new JSONArray(levelsContent);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < levelsArray.length(); i++) {
+            JSONObject levelData = levelsArray.getJSONObject(i);
+            String difficulty = rate(Board.fromJson(levelData));
+            String label = levelData.optString("difficulty", "");
+            String change = label.isEmpty() || label.equals(difficulty) ? "" : " (was labelled " + label + ")";
+            levelData.put("difficulty", difficulty);
+            System.err.println("Level " + levelData.opt("id") + ": " + difficulty + change);
+        }
+        System.err.printf("Rated %d levels in %.1f ms%n",
+                levelsArray.length(), (System.nanoTime() - start) / 1e6);
+
+        if (args.length > 1) {
+            try (Writer writer = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                writer.write(levelsArray.toString());
+            }
+        } else {
+            System.out.println(levelsArray);
+        }
+    }
+}
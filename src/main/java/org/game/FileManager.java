@@ -2,31 +2,144 @@ package org.game;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * Locates the files the game reads and writes in the user data directory ~/.amoebae.
+ * At startup the directory is created and missing default files are copied from the
+ * resources in parallel, once. After that, looking up a path is a map lookup with no
+ * file system access. If the directory cannot be used, the game runs in an explicit
+ * fallback mode on the files under src/main/resources.
+ */
 public class FileManager {
-    static Path getUserDataPath(String filename) {
-        String userHome = System.getProperty("user.home");
-        Path gameDataDir = Paths.get(userHome, ".amoebae"); // Hidden folder
+    /** Files copied from the resources into the user data directory on first start. */
+    static final List<String> DEFAULT_FILES = List.of("Levels.json", "Preferences.json", "Themes.json");
+
+    private static final Path FALLBACK_DIRECTORY = Paths.get("src/main/resources");
+
+    private static volatile Path dataDirectory;
+    private static volatile Map<String, Path> paths;
+    private static boolean fallbackMode;
+
+    /**
+     * Prepares the user data directory and the path registry. Only the first call does
+     * any work; later calls return immediately.
+     */
+    static synchronized void bootstrap() {
+        if (paths != null) {
+            return;
+        }
+        long start = System.nanoTime();
+        Map<String, Path> registry = new HashMap<>();
+        Path directory = Paths.get(System.getProperty("user.home"), ".amoebae"); // Hidden folder
+
+        try {
+            Files.createDirectories(directory);
+            copyDefaults(directory, registry);
+        } catch (IOException ex) {
+            System.err.println("Cannot use " + directory + ", falling back to " + FALLBACK_DIRECTORY
+                    + " for all user data: " + ex);
+            directory = FALLBACK_DIRECTORY;
+            fallbackMode = true;
+            for (String filename : DEFAULT_FILES) {
+                registry.put(filename, FALLBACK_DIRECTORY.resolve(filename));
+            }
+        }
+
+        dataDirectory = directory;
+        paths = Map.copyOf(registry);
+        TimingLog.log("User data ready in %s after %.1f ms%s", dataDirectory,
+                (System.nanoTime() - start) / 1e6, fallbackMode ? " (fallback mode)" : "");
+    }
 
+    /**
+     * Copies every missing default file into the user data directory, one task per file.
+     * A file that cannot be copied is read from the resources folder instead, and that
+     * is logged.
+     *
+     * @param directory The user data directory
+     * @param registry Receives the path of every default file
+     */
+    private static void copyDefaults(Path directory, Map<String, Path> registry) {
+        ExecutorService copiers = Executors.newFixedThreadPool(
+                Math.min(DEFAULT_FILES.size(), Runtime.getRuntime().availableProcessors()));
         try {
-            Files.createDirectories(gameDataDir);
-            Path targetFile = gameDataDir.resolve(filename);
-
-            // Copy default from resources if doesn't exist
-            if (!Files.exists(targetFile)) {
-                try (InputStream is = ColourTheme.class.getResourceAsStream("/" + filename)) {
-                    if (is != null) {
-                        Files.copy(is, targetFile);
-                    }
+            Map<String, Future<Path>> copies = new HashMap<>();
+            for (String filename : DEFAULT_FILES) {
+                copies.put(filename, copiers.submit(() -> copyDefault(directory, filename)));
+            }
+            for (String filename : DEFAULT_FILES) {
+                try {
+                    registry.put(filename, copies.get(filename).get());
+                } catch (ExecutionException ex) {
+                    System.err.println("Cannot copy default " + filename + ", using "
+                            + FALLBACK_DIRECTORY.resolve(filename) + ": " + ex.getCause());
+                    registry.put(filename, FALLBACK_DIRECTORY.resolve(filename));
                 }
             }
-            return targetFile;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return Paths.get("src/main/resources/" + filename); // Fallback
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            copiers.shutdown();
+        }
+    }
+
+    /**
+     * Copies one default file from the resources unless the user already has it.
+     *
+     * @param directory The user data directory
+     * @param filename The file name, also its name in the resources root
+     * @return The path of the file in the user data directory
+     * @throws IOException If the file is missing and cannot be copied
+     */
+    private static Path copyDefault(Path directory, String filename) throws IOException {
+        Path targetFile = directory.resolve(filename);
+        try (InputStream is = FileManager.class.getResourceAsStream("/" + filename)) {
+            if (is == null) {
+                throw new IOException("Resource /" + filename + " not found");
+            }
+            Files.copy(is, targetFile);
+        } catch (FileAlreadyExistsException ex) {
+            // Keep the user's copy
         }
+        return targetFile;
+    }
+
+    /**
+     * Returns the path of a user data file, bootstrapping the directory on first use.
+     * Files that are not defaults, such as the progress log, resolve inside the data
+     * directory and are created by their owners.
+     *
+     * @param filename The file name
+     * @return The path of the file
+     */
+    static Path getUserDataPath(String filename) {
+        Map<String, Path> registry = paths;
+        if (registry == null) {
+            bootstrap();
+            registry = paths;
+        }
+        Path path = registry.get(filename);
+        return path != null ? path : dataDirectory.resolve(filename);
+    }
+
+    /**
+     * Checks whether the game is running on the resources folder because the user data
+     * directory could not be used.
+     *
+     * @return true in fallback mode
+     */
+    static synchronized boolean isFallbackMode() {
+        return fallbackMode;
     }
 }
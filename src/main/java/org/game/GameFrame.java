@@ -1,25 +1,42 @@
 package org.game;
 
 import java.awt.*;
-import java.io.FileWriter;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import javax.swing.*;
-import javax.swing.border.LineBorder;
-import org.json.*;
-
-import static org.game.FileManager.getUserDataPath;
 
 /**
  * Main game window that manages the UI and navigation between different screens.
  * Handles the menu, level selection, settings, and rules displays.
+ * Each screen is built the first time it is shown and then kept in a CardLayout, so
+ * navigating only refreshes the data that can change, such as completion colours or
+ * the volume, and flips to the screen.
  */
 public class GameFrame extends JFrame {
+    static final String MENU_SCREEN = "menu";
+    static final String LEVELS_SCREEN = "levels";
+    static final String LEVEL_SCREEN = "level";
+    static final String SETTINGS_SCREEN = "settings";
+    static final String RULES_SCREEN = "rules";
+
+    /** Width and height of the window. */
+    static final int FRAME_SIZE = 576;
+
+    /** Background of completed levels in the level list. */
+    static final Color COMPLETED_COLOUR = new Color(0xFFD733);
+
+    /** Blue background of the menu buttons and of every other unfinished level. */
+    static final Color LEVEL_COLOUR = new Color(0x85A4E4);
+
     MusicPlayer musicPlayer;
+    CardLayout screenLayout;
+    Map<String, JPanel> screens;
+    LevelBrowser levelBrowser;
+    Level currentLevel;
     ArrayList<RoundedButton> themeColourButtons;
     int selectedThemeId;
     int musicVolume;
@@ -35,11 +52,34 @@ public class GameFrame extends JFrame {
         this.setTitle("Amoebae");
         this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         this.setLayout(null);
-        this.setSize(576, 576);
+        this.setSize(FRAME_SIZE, FRAME_SIZE);
         this.setResizable(false);
         this.setLocationRelativeTo(null);
         this.musicPlayer = musicPlayer;
 
+        // Set background image, shared by every screen and usually decoded during startup
+        JLabel background = new JLabel();
+        try {
+            background.setIcon(new ImageIcon(ImageAssets.get(ImageAssets.BACKGROUND, FRAME_SIZE, FRAME_SIZE)));
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+        }
+        screenLayout = new CardLayout();
+        background.setLayout(screenLayout);
+        setContentPane(background);
+        screens = new HashMap<>();
+
+        // Keep the board of a level that is open when the window closes; the progress log
+        // finishes writing it in its shutdown hook
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent windowEvent) {
+                if (currentLevel != null) {
+                    currentLevel.saveUnfinishedBoard();
+                }
+            }
+        });
+
         volumeSlider = new Slider(musicPlayer) {
             @Override
             public void updateUI() {
@@ -55,17 +95,33 @@ public class GameFrame extends JFrame {
      * @throws IOException If there's an error loading resources
      */
     void displayMenu() throws IOException {
-        this.getContentPane().removeAll();
-        this.repaint();
-        this.setLayout(null);
+        if (!screens.containsKey(MENU_SCREEN)) {
+            long start = System.nanoTime();
+            buildMenu(addScreen(MENU_SCREEN));
+            logBuildTime(MENU_SCREEN, start);
+        }
+        showScreen(MENU_SCREEN);
 
+        // Start music if not already playing
+        if (!isMusicPlaying) {
+            isMusicPlaying = true;
+            musicPlayer.playMusic();
+        }
+    }
+
+    /**
+     * Builds the main menu.
+     *
+     * @param screen The panel to build the menu in
+     */
+    void buildMenu(JPanel screen) {
         // Create Play button
         RoundedButton playButton = new RoundedButton();
         playButton.setPreferredSize(new Dimension(200, 100));
         playButton.setRadius(20);
         playButton.setText("Play");
-        playButton.setBackground(Color.decode("0x85A4E4"));
-        playButton.backgroundColour = Color.decode("0x85A4E4");
+        playButton.setBackground(LEVEL_COLOUR);
+        playButton.backgroundColour = LEVEL_COLOUR;
         playButton.addActionListener(e -> this.displayLevels());
 
         // Create Settings button
@@ -86,8 +142,8 @@ public class GameFrame extends JFrame {
         rulesButton.setPreferredSize(new Dimension(200, 100));
         rulesButton.setRadius(20);
         rulesButton.setText("Rules");
-        rulesButton.setBackground(Color.decode("0x85A4E4"));
-        rulesButton.backgroundColour = Color.decode("0x85A4E4");
+        rulesButton.setBackground(LEVEL_COLOUR);
+        rulesButton.backgroundColour = LEVEL_COLOUR;
         rulesButton.addActionListener(e -> {
             try {
                 this.displayRules();
@@ -108,136 +164,85 @@ public class GameFrame extends JFrame {
         buttonPanel.setLayout(new GridLayout(3, 1, 30, 30));
         buttonPanel.setOpaque(false);
 
-        // Set background image
-        String resourcePath = "/images/planks.jpg";
-        java.net.URL imgURL = getClass().getResource(resourcePath);
-        assert imgURL != null;
-        setContentPane(new JLabel(new ImageIcon(imgURL)));
-
         // Add buttons to panel
         buttonPanel.add(playButton);
         buttonPanel.add(settingsButton);
         buttonPanel.add(rulesButton);
 
-        this.add(titleLabel);
-        this.add(buttonPanel);
-        this.setVisible(true);
-
-        // Start music if not already playing
-        if (!isMusicPlaying) {
-            isMusicPlaying = true;
-            musicPlayer.playMusic();
-        }
+        screen.add(titleLabel);
+        screen.add(buttonPanel);
     }
 
     /**
      * Displays the level selection screen showing all available levels.
      * Each level shows its size, difficulty, and completion status.
+     * The list is built once; showing it again re-reads the catalog size and redraws
+     * the visible rows with the current progress.
      */
     void displayLevels() {
-        this.getContentPane().removeAll();
-        this.repaint();
-        this.setLayout(null);
+        currentLevel = null;
 
-        try {
-            // Load user preferences
-            Path preferencesPath = getUserDataPath("Preferences.json");
-            String preferencesContent = Files.readString(preferencesPath, StandardCharsets.UTF_8);
-            JSONArray preferences = new JSONArray(preferencesContent);
-
-            musicVolume = preferences.getJSONObject(0).getInt("volume");
-            volumeSlider.setValue(musicVolume);
-
-            // Load levels data
-            Path levelsPath = getUserDataPath("Levels.json");
-            String levelsContent = Files.readString(levelsPath, StandardCharsets.UTF_8);
-            JSONArray levelsArray = new JSONArray(levelsContent);
-
-            // Create back button
-            JPanel backPanel = new JPanel();
-            backPanel.setLayout(new GridBagLayout());
-            backPanel.setBounds(107, 460, 350, 58);
-            backPanel.setOpaque(false);
-            RoundedButton backButton = new RoundedButton();
-            backButton.setRadius(20);
-            backButton.setPreferredSize(new Dimension(140, 58));
-            backButton.setText("Back");
-            backButton.backgroundColour = Color.WHITE;
-            backButton.addActionListener(e -> {
-                try {
-                    this.displayMenu();
-                } catch (IOException ex) {
-                    throw new RuntimeException(ex);
-                }
-            });
-            backPanel.add(backButton);
-
-            // Create panel for level buttons
-            JPanel levelButtonsPanel = new JPanel();
-            levelButtonsPanel.setLayout(
-                    new GridLayout(levelsArray.length(), 1, 10, 10));
-            levelButtonsPanel.setBounds(80, 80, 200, 110 * levelsArray.length());
-            levelButtonsPanel.setOpaque(false);
-
-            // Create panel for level details
-            JPanel levelDetailsPanel = new JPanel();
-            levelDetailsPanel.setLayout(
-                    new GridLayout(levelsArray.length(), 1, 10, 10));
-            levelDetailsPanel.setBounds(320, 80, 200, 110 * levelsArray.length());
-            levelDetailsPanel.setOpaque(false);
-
-            // Create button and details for each level
-            for (int i = 0; i < levelsArray.length(); i++) {
-                JSONObject levelData = levelsArray.getJSONObject(i);
-
-                // Create level button
-                RoundedButton levelButton = new RoundedButton();
-                levelButton.setRadius(20);
-                levelButton.setPreferredSize(new Dimension(200, 100));
-                levelButton.setText("Level " + (i + 1));
-
-                // Set button colour based on completion status
-                if (levelData.getBoolean("completed")) {
-                    levelButton.setBgColour(Color.decode("0xFFD733")); // Gold for completed
-                } else {
-                    if (i % 2 == 0) {
-                        levelButton.setBgColour(Color.decode("0x85A4E4")); // Blue
-                    } else {
-                        levelButton.setBgColour(Color.WHITE);
-                    }
-                }
-                levelButton.setBorder(new LineBorder(Color.BLACK));
-
-                final int levelIndex = i;
-                levelButton.addActionListener(e -> {
-                    try {
-                        this.displayLevel(levelIndex);
-                    } catch (IOException ex) {
-                        throw new RuntimeException(ex);
-                    }
-                });
-
-                levelButtonsPanel.add(levelButton);
-
-                // Create level details label
-                String boardSize = "Board size: " +
-                        levelData.getInt("size") + "x" + levelData.getInt("size");
-                String difficulty = "Difficulty: " + levelData.getString("difficulty");
-                String completionStatus = "Completed: " + levelData.getBoolean("completed");
-                JLabel detailsLabel = new JLabel(
-                        "<html>" + boardSize + "<br/>" +
-                                difficulty + "<br/>" + completionStatus + "<br/></html>");
-                detailsLabel.setFont(new Font("Calibri", Font.BOLD, 20));
-                levelDetailsPanel.add(detailsLabel);
-            }
+        // Load user preferences
+        loadVolume();
 
-            this.add(levelDetailsPanel);
-            this.add(levelButtonsPanel);
-            this.add(backPanel);
-            this.setVisible(true);
-        } catch (Exception ex) {
-            ex.printStackTrace();
+        if (!screens.containsKey(LEVELS_SCREEN)) {
+            long start = System.nanoTime();
+            buildLevels(addScreen(LEVELS_SCREEN));
+            logBuildTime(LEVELS_SCREEN, start);
         }
+        levelBrowser.refresh();
+        showScreen(LEVELS_SCREEN);
+    }
+
+    /**
+     * Builds the level selection screen: a scrollable level browser and a back button.
+     *
+     * @param screen The panel to build the screen in
+     */
+    void buildLevels(JPanel screen) {
+        // Create back button
+        JPanel backPanel = new JPanel();
+        backPanel.setLayout(new GridBagLayout());
+        backPanel.setBounds(107, 460, 350, 58);
+        backPanel.setOpaque(false);
+        RoundedButton backButton = new RoundedButton();
+        backButton.setRadius(20);
+        backButton.setPreferredSize(new Dimension(140, 58));
+        backButton.setText("Back");
+        backButton.backgroundColour = Color.WHITE;
+        backButton.addActionListener(e -> {
+            try {
+                this.displayMenu();
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        backPanel.add(backButton);
+
+        // Create the level browser, which only builds and paints the visible rows and
+        // renders their previews in the background
+        levelBrowser = new LevelBrowser(LevelCatalog.get(), LevelThumbnails.get(), levelIndex -> {
+            try {
+                this.displayLevel(levelIndex);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        levelBrowser.setBounds(70, 80, LevelBrowser.ROW_WIDTH + 20, 370);
+
+        screen.add(levelBrowser);
+        screen.add(backPanel);
+    }
+
+    /**
+     * Formats a duration as minutes and seconds.
+     *
+     * @param millis The duration in milliseconds
+     * @return The duration as m:ss
+     */
+    static String formatTime(long millis) {
+        long seconds = millis / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
     }
 
     /**
@@ -247,13 +252,26 @@ public class GameFrame extends JFrame {
      * @throws IOException If there's an error loading the level data
      */
     void displayLevel(int levelIndex) throws IOException {
-        this.getContentPane().removeAll();
-        this.repaint();
-        this.setLayout(null);
-
         Level level = new Level(levelIndex);
         level.gameFrame = this;
         level.display();
+        currentLevel = level;
+    }
+
+    /**
+     * Empties the level screen for a new level to build its components in.
+     * Unlike the other screens, its content differs for every level.
+     *
+     * @return The empty level screen
+     */
+    JPanel levelScreen() {
+        JPanel screen = screens.get(LEVEL_SCREEN);
+        if (screen == null) {
+            screen = addScreen(LEVEL_SCREEN);
+        } else {
+            screen.removeAll();
+        }
+        return screen;
     }
 
     /**
@@ -262,10 +280,24 @@ public class GameFrame extends JFrame {
      * @throws IOException If there's an error loading settings data
      */
     void displaySettings() throws IOException {
-        this.getContentPane().removeAll();
-        this.repaint();
-        this.setLayout(null);
+        if (!screens.containsKey(SETTINGS_SCREEN)) {
+            long start = System.nanoTime();
+            buildSettings(addScreen(SETTINGS_SCREEN));
+            logBuildTime(SETTINGS_SCREEN, start);
+        }
 
+        // Load current theme and volume settings; the previews follow the theme when painted
+        selectedThemeId = ColourTheme.currentThemeId();
+        loadVolume();
+        showScreen(SETTINGS_SCREEN);
+    }
+
+    /**
+     * Builds the settings screen.
+     *
+     * @param screen The panel to build the screen in
+     */
+    void buildSettings(JPanel screen) {
         // Create back button
         JPanel backPanel = new JPanel();
         backPanel.setLayout(new GridBagLayout());
@@ -285,15 +317,6 @@ public class GameFrame extends JFrame {
         });
         backPanel.add(backButton);
 
-        // Load preferences and themes
-        Path preferencesPath = getUserDataPath("Preferences.json");
-        String preferencesContent = Files.readString(preferencesPath, StandardCharsets.UTF_8);
-        JSONArray preferences = new JSONArray(preferencesContent);
-
-        Path themesPath = getUserDataPath("Themes.json");
-        String themesContent = Files.readString(themesPath, StandardCharsets.UTF_8);
-        JSONArray themes = new JSONArray(themesContent);
-
         // Create settings panels
         JPanel settingsPanel = new JPanel();
         settingsPanel.setBounds(88, 100, 400, 400);
@@ -303,12 +326,6 @@ public class GameFrame extends JFrame {
         themePanel.setBounds(88, 270, 400, 400);
         themePanel.setLayout(new FlowLayout(FlowLayout.CENTER, 0, 0));
 
-        // Load current theme and volume settings
-        selectedThemeId = preferences.getJSONObject(0).getInt("theme");
-        musicVolume = preferences.getJSONObject(0).getInt("volume");
-        volumeSlider.setValue(musicVolume);
-        JSONObject currentTheme = themes.getJSONObject(selectedThemeId);
-
         // Create theme colour preview buttons
         themeColourButtons = new ArrayList<>();
         for (int i = 0; i < 3; i++) {
@@ -316,8 +333,7 @@ public class GameFrame extends JFrame {
             colorPreviewButton.setEnabled(false);
             colorPreviewButton.setRadius(500);
             colorPreviewButton.setPreferredSize(new Dimension(40, 40));
-            colorPreviewButton.setBgColour(
-                    Color.decode(currentTheme.getJSONArray("colours").getString(i)));
+            colorPreviewButton.setThemeColour(i);
             themeColourButtons.add(colorPreviewButton);
         }
 
@@ -326,7 +342,7 @@ public class GameFrame extends JFrame {
         switchThemeButton.setText("Switch theme");
         switchThemeButton.setRadius(20);
         switchThemeButton.setPreferredSize(new Dimension(200, 60));
-        switchThemeButton.addActionListener(e -> switchTheme(themes.length()));
+        switchThemeButton.addActionListener(e -> switchTheme(ColourTheme.themeCount()));
 
         // Add volume controls
         settingsPanel.add(new JLabel("Volume")).setFont(
@@ -345,10 +361,9 @@ public class GameFrame extends JFrame {
         backPanel.setOpaque(false);
         themePanel.setOpaque(false);
 
-        this.add(settingsPanel);
-        this.add(backPanel);
-        this.add(themePanel);
-        this.setVisible(true);
+        screen.add(settingsPanel);
+        screen.add(backPanel);
+        screen.add(themePanel);
     }
 
     /**
@@ -357,18 +372,23 @@ public class GameFrame extends JFrame {
      * @throws IOException If there's an error loading preferences
      */
     void displayRules() throws IOException {
-        this.getContentPane().removeAll();
-        this.repaint();
-        this.setLayout(null);
-
         // Load volume preference
-        Path preferencesPath = getUserDataPath("Preferences.json");
-        String preferencesContent = Files.readString(preferencesPath, StandardCharsets.UTF_8);
-        JSONArray preferences = new JSONArray(preferencesContent);
+        loadVolume();
 
-        musicVolume = preferences.getJSONObject(0).getInt("volume");
-        volumeSlider.setValue(musicVolume);
+        if (!screens.containsKey(RULES_SCREEN)) {
+            long start = System.nanoTime();
+            buildRules(addScreen(RULES_SCREEN));
+            logBuildTime(RULES_SCREEN, start);
+        }
+        showScreen(RULES_SCREEN);
+    }
 
+    /**
+     * Builds the rules screen.
+     *
+     * @param screen The panel to build the screen in
+     */
+    void buildRules(JPanel screen) {
         // Create back button
         JPanel backPanel = new JPanel();
         backPanel.setLayout(new GridBagLayout());
@@ -395,12 +415,58 @@ public class GameFrame extends JFrame {
 
         JLabel rulesExplanation = createRulesExplanationLabel();
 
-        this.add(rulesTitle);
-        this.add(rulesExplanation);
-        this.add(backPanel);
+        screen.add(rulesTitle);
+        screen.add(rulesExplanation);
+        screen.add(backPanel);
+    }
+
+    /**
+     * Creates an empty, transparent screen with absolute positioning and registers it
+     * with the screen layout.
+     *
+     * @param name The name of the screen
+     * @return The new screen
+     */
+    JPanel addScreen(String name) {
+        JPanel screen = new JPanel(null);
+        screen.setOpaque(false);
+        getContentPane().add(screen, name);
+        screens.put(name, screen);
+        return screen;
+    }
+
+    /**
+     * Brings a screen to the front, logging how long the switch and its layout took when
+     * timing is enabled.
+     *
+     * @param name The name of the screen
+     */
+    void showScreen(String name) {
+        long start = System.nanoTime();
+        screenLayout.show(getContentPane(), name);
+        getContentPane().validate();
+        TimingLog.log("Showed %s screen in %.3f ms", name, (System.nanoTime() - start) / 1e6);
         this.setVisible(true);
     }
 
+    /**
+     * Logs how long building a screen took, when timing is enabled.
+     *
+     * @param name The name of the screen
+     * @param startNanos The System.nanoTime() value when building started
+     */
+    static void logBuildTime(String name, long startNanos) {
+        TimingLog.log("Built %s screen in %.1f ms", name, (System.nanoTime() - startNanos) / 1e6);
+    }
+
+    /**
+     * Sets the volume slider, and with it the music, to the stored volume preference.
+     */
+    void loadVolume() {
+        musicVolume = PreferencesStore.get().getInt("volume");
+        volumeSlider.setValue(musicVolume);
+    }
+
     /**
      * Creates a label with the game rules explanation.
      *
@@ -423,44 +489,22 @@ public class GameFrame extends JFrame {
     /**
      * Switches to the next available theme and updates the preview.
      * Saves the new theme selection to preferences.
+     * Themed components resolve their colours when painted, so one repaint of the frame
+     * re-skins everything on screen.
      *
      * @param totalThemeCount The total number of available themes
      */
     void switchTheme(int totalThemeCount) {
-        try {
-            // Cycle to next theme
-            selectedThemeId++;
-            if (selectedThemeId == totalThemeCount) {
-                selectedThemeId = 0;
-            }
-
-            // Load and update preferences
-            Path preferencesPath = getUserDataPath("Preferences.json");
-            String preferencesContent = Files.readString(preferencesPath, StandardCharsets.UTF_8);
-            JSONArray preferences = new JSONArray(preferencesContent);
-
-            JSONObject preferencesObject = preferences.getJSONObject(0);
-            preferencesObject.put("theme", selectedThemeId);
-            preferences.put(0, preferencesObject);
-
-            // Save updated preferences
-            FileWriter writer = new FileWriter(getUserDataPath("Preferences.json").toFile(), false);
-            writer.write(preferences.toString());
-            writer.close();
-
-            // Load new theme and update colour preview buttons
-            Path themesPath = getUserDataPath("Themes.json");
-            String themesContent = Files.readString(themesPath, StandardCharsets.UTF_8);
-            JSONArray themes = new JSONArray(themesContent);
+        // Cycle to next theme
+        selectedThemeId++;
+        if (selectedThemeId == totalThemeCount) {
+            selectedThemeId = 0;
+        }
 
-            JSONObject newTheme = themes.getJSONObject(selectedThemeId);
+        // Update the cached palette and the preferences, which are written in the background
+        ColourTheme.switchTheme(selectedThemeId);
+        PreferencesStore.get().putInt("theme", selectedThemeId);
 
-            for (int i = 0; i < 3; i++) {
-                themeColourButtons.get(i).setBgColour(
-                        Color.decode(newTheme.getJSONArray("colours").getString(i)));
-            }
-        } catch (IOException ie) {
-            ie.printStackTrace();
-        }
+        this.repaint();
     }
 }
\ No newline at end of file
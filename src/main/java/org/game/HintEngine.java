@@ -0,0 +1,217 @@
+package org.game;
+
+/**
+ * Finds the next logically deducible cell on a board that is being played.
+ * Candidate sets for every cell are kept up to date as digits are placed and cleared,
+ * so answering a hint only scans bitmasks. Only when no single is available does the
+ * engine fall back to the slower techniques of the DifficultyRater.
+ */
+public class HintEngine {
+
+    /**
+     * A suggested cell together with the reason it can be deduced.
+     */
+    static final class Hint {
+        final int cell;
+        final int digit;
+        final String reason;
+
+        Hint(int cell, int digit, String reason) {
+            this.cell = cell;
+            this.digit = digit;
+            this.reason = reason;
+        }
+    }
+
+    private static final String[] UNIT_NAMES = {"row", "column", "region"};
+
+    private final Board board;
+    private final int[] solution;
+    final int[] candidates;
+
+    /**
+     * Constructs a hint engine for a board.
+     *
+     * @param board The live board, updated by the caller as the player moves
+     * @param solution The solution in row-major order, used to spot wrong entries;
+     *                 cells holding 0 are not checked
+     */
+    HintEngine(Board board, int[] solution) {
+        this.board = board;
+        this.solution = solution;
+        this.candidates = new int[board.cellCount];
+        for (int i = 0; i < board.cellCount; i++) {
+            refresh(i);
+        }
+    }
+
+    /**
+     * Updates the candidates affected by a change to one cell: the cell itself and every
+     * cell sharing a row, column or region with it.
+     *
+     * @param cell The cell that was placed or cleared
+     */
+    void cellChanged(int cell) {
+        int size = board.size;
+        for (int peer : board.unitCells[cell / size]) {
+            refresh(peer);
+        }
+        for (int peer : board.unitCells[size + cell % size]) {
+            refresh(peer);
+        }
+        for (int peer : board.unitCells[2 * size + board.regions[cell]]) {
+            refresh(peer);
+        }
+    }
+
+    /**
+     * Recomputes the candidates of one cell from the board's unit masks.
+     *
+     * @param cell The cell index
+     */
+    private void refresh(int cell) {
+        candidates[cell] = board.get(cell) == 0 ? board.candidates(cell) : 0;
+    }
+
+    /**
+     * Finds the next hint for the player.
+     * Mistakes are pointed out first, then naked and hidden singles, then the first
+     * placement the rater's harder techniques lead to. If even those get stuck, the most
+     * constrained empty cell is revealed from the solution.
+     *
+     * @return The hint, or null if the board is solved or no step was found
+     */
+    Hint nextHint() {
+        if (board.isSolved()) {
+            return null;
+        }
+        Hint hint = findMistake();
+        if (hint == null) {
+            hint = findNakedSingle();
+        }
+        if (hint == null) {
+            hint = findHiddenSingle();
+        }
+        if (hint == null) {
+            hint = findWithRater();
+        }
+        if (hint == null) {
+            hint = revealFromSolution();
+        }
+        return hint;
+    }
+
+    /**
+     * Points at a player entry that repeats a digit or differs from the solution.
+     *
+     * @return The hint, or null if every entry is correct so far
+     */
+    private Hint findMistake() {
+        if (board.conflictCount > 0) {
+            for (int unit = 0; unit < board.unitCells.length; unit++) {
+                for (int cell : board.unitCells[unit]) {
+                    int digit = board.get(cell);
+                    if (digit != 0 && !board.isFixed(cell) && board.count(unit, digit) > 1) {
+                        return new Hint(cell, digit, "This " + digit + " appears twice in its "
+                                + UNIT_NAMES[unit / board.size] + ".");
+                    }
+                }
+            }
+        }
+        for (int cell = 0; cell < board.cellCount; cell++) {
+            int digit = board.get(cell);
+            if (digit != 0 && solution[cell] != 0 && digit != solution[cell]) {
+                return new Hint(cell, digit, "This " + digit + " does not belong here.");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds an empty cell with only one candidate left.
+     *
+     * @return The hint, or null if there is none
+     */
+    private Hint findNakedSingle() {
+        for (int cell = 0; cell < board.cellCount; cell++) {
+            int mask = candidates[cell];
+            if (mask != 0 && (mask & (mask - 1)) == 0) {
+                return new Hint(cell, Integer.numberOfTrailingZeros(mask) + 1,
+                        "Naked single: only one number fits in this cell.");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds a digit that has only one possible cell left in some unit.
+     *
+     * @return The hint, or null if there is none
+     */
+    private Hint findHiddenSingle() {
+        for (int unit = 0; unit < board.unitCells.length; unit++) {
+            int[] cells = board.unitCells[unit];
+            int once = 0;
+            int twice = 0;
+            for (int cell : cells) {
+                twice |= once & candidates[cell];
+                once |= candidates[cell];
+            }
+            int singles = once & ~twice;
+            if (singles == 0) {
+                continue;
+            }
+            int bit = singles & -singles;
+            int digit = Integer.numberOfTrailingZeros(bit) + 1;
+            for (int cell : cells) {
+                if ((candidates[cell] & bit) != 0) {
+                    return new Hint(cell, digit, "Hidden single: this is the only place for a "
+                            + digit + " in its " + UNIT_NAMES[unit / board.size] + ".");
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs the rater's techniques on a copy of the board until they place a digit.
+     *
+     * @return The hint, or null if the techniques get stuck
+     */
+    private Hint findWithRater() {
+        DifficultyRater rater = new DifficultyRater(board);
+        DifficultyRater.Technique hardest = null;
+        while (rater.lastPlacedCell < 0) {
+            DifficultyRater.Technique used = rater.step();
+            if (used == null) {
+                return null;
+            }
+            if (hardest == null || used.ordinal() > hardest.ordinal()) {
+                hardest = used;
+            }
+        }
+        int cell = rater.lastPlacedCell;
+        return new Hint(cell, rater.board.get(cell), "Look for a " + hardest.description
+                + ": it leaves only one possible number for this cell.");
+    }
+
+    /**
+     * Reveals the solution digit of the empty cell with the fewest candidates.
+     *
+     * @return The hint, or null if the solution of every empty cell is unknown
+     */
+    private Hint revealFromSolution() {
+        int best = -1;
+        for (int cell = 0; cell < board.cellCount; cell++) {
+            if (board.get(cell) == 0 && solution[cell] != 0 && (best < 0
+                    || Integer.bitCount(candidates[cell]) < Integer.bitCount(candidates[best]))) {
+                best = cell;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+        return new Hint(best, solution[best],
+                "No simple deduction left, so here is one: this cell holds a " + solution[best] + ".");
+    }
+}
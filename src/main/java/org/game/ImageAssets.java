@@ -0,0 +1,169 @@
+package org.game;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+
+/**
+ * Cache of decoded image resources, shared by all screens.
+ * Each resource is decoded once, fitted to the size it is shown at and copied into an
+ * image compatible with the screen, so drawing it is a plain copy. Images can be
+ * warmed up on a background thread at startup; a request for an image that is still
+ * loading waits for that load instead of decoding it a second time. A load that failed
+ * is dropped from the cache, so the next request tries again.
+ */
+public class ImageAssets {
+    /** Background image of every screen. */
+    static final String BACKGROUND = "/images/planks.jpg";
+
+    private static final Map<String, CompletableFuture<BufferedImage>> images = new ConcurrentHashMap<>();
+    private static ExecutorService loader;
+
+    /**
+     * Starts loading an image in the background, unless it is loaded or loading already.
+     * An earlier load that failed is replaced.
+     *
+     * @param resource The resource path of the image
+     * @param width The width to fit the image to
+     * @param height The height to fit the image to
+     */
+    static void warmUp(String resource, int width, int height) {
+        images.compute(key(resource, width, height), (key, image) ->
+                image == null || image.isCompletedExceptionally()
+                        ? CompletableFuture.supplyAsync(() -> load(resource, width, height), loader())
+                        : image);
+    }
+
+    /**
+     * Returns an image fitted to a size, loading it on the calling thread if it has not
+     * been requested before or its earlier load failed.
+     *
+     * @param resource The resource path of the image
+     * @param width The width to fit the image to
+     * @param height The height to fit the image to
+     * @return The image, exactly width by height pixels
+     * @throws RuntimeException If the image cannot be loaded
+     */
+    static BufferedImage get(String resource, int width, int height) {
+        String key = key(resource, width, height);
+        CompletableFuture<BufferedImage> image = images.get(key);
+        if (image != null && image.isCompletedExceptionally()) {
+            images.remove(key, image);
+            image = null;
+        }
+        if (image == null) {
+            CompletableFuture<BufferedImage> loading = new CompletableFuture<>();
+            image = images.putIfAbsent(key, loading);
+            if (image == null) {
+                image = loading;
+                try {
+                    loading.complete(load(resource, width, height));
+                } catch (RuntimeException ex) {
+                    loading.completeExceptionally(ex);
+                }
+            }
+        }
+        try {
+            return image.join();
+        } catch (CompletionException ex) {
+            // Forget the failure, for example of a warm-up still running above, so it is retried
+            images.remove(key, image);
+            throw ex;
+        }
+    }
+
+    /**
+     * Builds the cache key of a resource at a size.
+     *
+     * @param resource The resource path
+     * @param width The width
+     * @param height The height
+     * @return The key
+     */
+    private static String key(String resource, int width, int height) {
+        return resource + "@" + width + "x" + height;
+    }
+
+    /**
+     * Returns the background loader, starting it on first use.
+     *
+     * @return The loader
+     */
+    private static synchronized ExecutorService loader() {
+        if (loader == null) {
+            loader = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "image-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return loader;
+    }
+
+    /**
+     * Decodes an image resource and fits it to a size.
+     * The image keeps its natural scale and is cropped around its centre, as a centred
+     * label would show it; it is only enlarged when it is too small to cover the size.
+     *
+     * @param resource The resource path of the image
+     * @param width The width to fit the image to
+     * @param height The height to fit the image to
+     * @return The fitted image
+     * @throws RuntimeException If the resource is missing or cannot be decoded
+     */
+    private static BufferedImage load(String resource, int width, int height) {
+        long start = System.nanoTime();
+        BufferedImage source;
+        try (InputStream is = ImageAssets.class.getResourceAsStream(resource)) {
+            if (is == null) {
+                throw new IOException("Resource " + resource + " not found");
+            }
+            source = ImageIO.read(is);
+            if (source == null) {
+                throw new IOException("Resource " + resource + " is not a readable image");
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        BufferedImage fitted = createCompatibleImage(width, height);
+        double scale = Math.max(1.0, Math.max((double) width / source.getWidth(),
+                (double) height / source.getHeight()));
+        int scaledWidth = (int) Math.ceil(source.getWidth() * scale);
+        int scaledHeight = (int) Math.ceil(source.getHeight() * scale);
+
+        Graphics2D g2 = fitted.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g2.drawImage(source, (width - scaledWidth) / 2, (height - scaledHeight) / 2,
+                scaledWidth, scaledHeight, null);
+        g2.dispose();
+
+        TimingLog.log("Loaded %s at %dx%d in %.1f ms", resource, width, height,
+                (System.nanoTime() - start) / 1e6);
+        return fitted;
+    }
+
+    /**
+     * Creates an opaque image in the screen's native format, or a plain RGB image when
+     * there is no screen.
+     *
+     * @param width The image width
+     * @param height The image height
+     * @return The image
+     */
+    private static BufferedImage createCompatibleImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(width, height, Transparency.OPAQUE);
+    }
+}
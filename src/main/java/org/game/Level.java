@@ -1,21 +1,10 @@
 package org.game;
 
 import java.awt.*;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Set;
 import javax.swing.*;
-import javax.swing.border.LineBorder;
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import static org.game.FileManager.getUserDataPath;
 
 /**
  * Represents a single game level with a puzzle board.
@@ -23,68 +12,84 @@ import static org.game.FileManager.getUserDataPath;
  * with arbitrary regions instead of fixed 3x3 blocks.
  */
 public class Level {
-    JSONArray levelsArray;
     ArrayList<RoundedButton> numberSelectorButtons;
-    JSONObject levelData;
+    LevelRecord levelRecord;
     int levelId;
     int boardSize;
-    int filledCellCount;
     int selectedNumber;
-    JSONArray boardState;
-    JSONArray regionAssignments;
-    JSONArray fixedCells;
+    Board board;
+    HintEngine hintEngine;
+    MoveJournal journal;
+    long startNanos;
     GameFrame gameFrame;
-    JPanel boardPanel;
+    BoardView boardView;
     JPanel numberSelectorPanel;
     JPanel controlButtonsPanel;
+    JLabel hintLabel;
     JWindow completionPopup;
 
     /**
-     * Constructs a Level object by loading level data from JSON.
+     * Constructs a Level object from the shared level catalog.
+     * The catalog decodes the level on first use and caches it, so reopening or
+     * resetting a level does not touch the disk.
      *
      * @param levelIndex The index of the level to load
      * @throws IOException If there's an error reading the levels file
      */
     Level(int levelIndex) throws IOException {
-        Path levelsPath = getUserDataPath("Levels.json");
-        String levelsContent = Files.readString(levelsPath, StandardCharsets.UTF_8);
-        levelsArray = new JSONArray(levelsContent);
-
-        levelData = levelsArray.getJSONObject(levelIndex);
-        levelId = levelData.getInt("id");
-        boardSize = levelData.getInt("size");
-        boardState = levelData.getJSONArray("tiles");
-        regionAssignments = levelData.getJSONArray("regions");
-        fixedCells = levelData.getJSONArray("fixed");
+        levelRecord = LevelCatalog.get().level(levelIndex);
+        levelId = levelRecord.id;
+        boardSize = levelRecord.size;
+        board = levelRecord.toBoard();
+        journal = new MoveJournal();
+        restoreLastBoard();
+        hintEngine = new HintEngine(board, levelRecord.solution());
 
         completionPopup = new JWindow(gameFrame);
-        filledCellCount = 0;
         selectedNumber = 1;
     }
 
     /**
-     * Displays the level on the game frame.
+     * Puts back the numbers the player left on an unfinished level.
+     * The restored numbers go through the journal, so Reset clears them as well.
+     */
+    void restoreLastBoard() {
+        ProgressStore.Progress progress = ProgressStore.get().get(levelId);
+        if (progress == null || progress.completed || progress.lastBoard == null
+                || progress.lastBoard.length != board.cellCount) {
+            return;
+        }
+        for (int cellIndex = 0; cellIndex < board.cellCount; cellIndex++) {
+            int digit = progress.lastBoard[cellIndex];
+            if (digit > 0 && digit <= boardSize && !board.isFixed(cellIndex)) {
+                journal.record(cellIndex, 0, digit);
+                board.place(cellIndex, digit);
+            }
+        }
+    }
+
+    /**
+     * Stores the numbers on the board in the progress log, unless the level is solved,
+     * so they are restored the next time the level is opened.
+     */
+    void saveUnfinishedBoard() {
+        if (!board.isSolved()) {
+            ProgressStore.get().saveBoard(levelId, board.cells);
+        }
+    }
+
+    /**
+     * Displays the level on the game frame's level screen.
      * Creates the game board, number selector, and control buttons.
      *
      * @throws IOException If there's an error during display setup
      */
     void display() throws IOException {
-        gameFrame.setLayout(null);
-
-        // Set background image for the level screen
-        String resourcePath = "/images/planks.jpg";
-        java.net.URL imgURL = gameFrame.getClass().getResource(resourcePath);
-        if (imgURL != null) {
-            gameFrame.setContentPane(new JLabel(new ImageIcon(imgURL)));
-            gameFrame.setLayout(null);
-        }
+        JPanel screen = gameFrame.levelScreen();
 
-        // Create the game board panel
-        boardPanel = new JPanel();
-        boardPanel.setLayout(new GridLayout(boardSize, boardSize));
-        boardPanel.setBounds(107, 89, 350, 350);
-        boardPanel.setOpaque(false);
-        boardPanel.setDoubleBuffered(true);
+        // Create the game board, a single component that paints every cell
+        boardView = new BoardView(board, this::updateCell);
+        boardView.setBounds(107, 89, 350, 350);
 
         // Create the number selector panel (right side)
         numberSelectorPanel = new JPanel();
@@ -93,10 +98,15 @@ public class Level {
         numberSelectorPanel.setOpaque(false);
         numberSelectorPanel.setDoubleBuffered(true);
 
-        // Create control buttons panel (back and reset)
+        // Create the hint message label above the board
+        hintLabel = new JLabel("", JLabel.CENTER);
+        hintLabel.setFont(new Font("Calibri", Font.BOLD, 18));
+        hintLabel.setBounds(57, 29, 462, 55);
+
+        // Create control buttons panel (back, undo, redo, reset and hint)
         controlButtonsPanel = new JPanel();
         controlButtonsPanel.setLayout(new FlowLayout(FlowLayout.CENTER, 0, 0));
-        controlButtonsPanel.setBounds(107, 460, 350, 58);
+        controlButtonsPanel.setBounds(57, 460, 462, 58);
         controlButtonsPanel.setOpaque(false);
         controlButtonsPanel.setDoubleBuffered(true);
 
@@ -104,30 +114,51 @@ public class Level {
         RoundedButton backButton = new RoundedButton();
         backButton.setRadius(20);
         backButton.setText("Back");
-        backButton.setPreferredSize(new Dimension(140, 58));
+        backButton.setPreferredSize(new Dimension(92, 58));
         backButton.setBgColour(Color.WHITE);
         backButton.addActionListener(e -> {
             completionPopup.setVisible(false);
+            saveUnfinishedBoard();
             gameFrame.displayLevels();
         });
         controlButtonsPanel.add(backButton);
 
+        // Create Undo button
+        RoundedButton undoButton = new RoundedButton();
+        undoButton.setRadius(20);
+        undoButton.setPreferredSize(new Dimension(92, 58));
+        undoButton.setText("Undo");
+        undoButton.setBgColour(Color.WHITE);
+        undoButton.addActionListener(e -> undo());
+        controlButtonsPanel.add(undoButton);
+
+        // Create Redo button
+        RoundedButton redoButton = new RoundedButton();
+        redoButton.setRadius(20);
+        redoButton.setPreferredSize(new Dimension(92, 58));
+        redoButton.setText("Redo");
+        redoButton.setBgColour(Color.WHITE);
+        redoButton.addActionListener(e -> redo());
+        controlButtonsPanel.add(redoButton);
+
         // Create Reset button
         RoundedButton resetButton = new RoundedButton();
         resetButton.setRadius(20);
-        resetButton.setPreferredSize(new Dimension(140, 58));
+        resetButton.setPreferredSize(new Dimension(92, 58));
         resetButton.setText("Reset");
         resetButton.setBgColour(Color.WHITE);
-        resetButton.addActionListener(e -> {
-            try {
-                completionPopup.setVisible(false);
-                gameFrame.displayLevel(levelId);
-            } catch (IOException ex) {
-                throw new RuntimeException(ex);
-            }
-        });
+        resetButton.addActionListener(e -> reset());
         controlButtonsPanel.add(resetButton);
 
+        // Create Hint button
+        RoundedButton hintButton = new RoundedButton();
+        hintButton.setRadius(20);
+        hintButton.setPreferredSize(new Dimension(92, 58));
+        hintButton.setText("Hint");
+        hintButton.setBgColour(Color.WHITE);
+        hintButton.addActionListener(e -> showHint());
+        controlButtonsPanel.add(hintButton);
+
         numberSelectorButtons = new ArrayList<>();
 
         // Create number selector buttons (1 to boardSize)
@@ -155,42 +186,16 @@ public class Level {
             numberSelectorButtons.add(numberButton);
         }
 
-        // Create the board cells
-        for (int row = 0; row < boardSize; row++) {
-            JSONArray rowData = boardState.getJSONArray(row);
-            for (int col = 0; col < boardSize; col++) {
-                JButton cellButton = new JButton();
-                cellButton.setFont(new Font("Calibri", Font.PLAIN, 25));
-                cellButton.setFocusable(false);
-                cellButton.setForeground(Color.WHITE);
-                cellButton.setOpaque(true);
-                cellButton.setContentAreaFilled(true);
-
-                // Check if this cell is fixed (pre-filled)
-                if (fixedCells.getJSONArray(row).getInt(col) == 1) {
-                    filledCellCount++;
-                    cellButton.setEnabled(false);
-                    cellButton.setText(String.valueOf(rowData.getInt(col)));
-                } else {
-                    // Make cell editable
-                    int finalRow = row;
-                    int finalCol = col;
-                    cellButton.addActionListener(e -> updateCell(cellButton, finalRow, finalCol));
-                }
-
-                // Set cell background colour based on region
-                cellButton.setBackground(ColourTheme.idToColour(
-                        regionAssignments.getJSONArray(row).getInt(col)));
-                cellButton.setBorder(new LineBorder(Color.BLACK));
-                boardPanel.add(cellButton);
-            }
-        }
+        // Repaint only the cells whose conflict state changes
+        board.conflictListener = (cellIndex, conflicting) -> boardView.repaintCell(cellIndex);
 
-        // Add all panels to game frame
-        gameFrame.add(numberSelectorPanel);
-        gameFrame.add(boardPanel);
-        gameFrame.add(controlButtonsPanel);
-        gameFrame.setVisible(true);
+        // Add all panels to the level screen
+        screen.add(numberSelectorPanel);
+        screen.add(boardView);
+        screen.add(controlButtonsPanel);
+        screen.add(hintLabel);
+        gameFrame.showScreen(GameFrame.LEVEL_SCREEN);
+        startNanos = System.nanoTime();
     }
 
     /**
@@ -217,106 +222,116 @@ public class Level {
      * Updates a cell on the board when clicked by the user.
      * If the cell already contains the selected number, it clears the cell.
      * Otherwise, it places the selected number in the cell.
-     * Checks for solution completion after each update.
+     * The move is recorded in the journal so it can be undone.
      *
-     * @param cellButton The button representing the cell
-     * @param row The row index of the cell
-     * @param col The column index of the cell
+     * @param cellIndex The index of the clicked cell
      */
-    void updateCell(JButton cellButton, int row, int col) {
-        if (!cellButton.getText().equals(String.valueOf(selectedNumber))) {
-            // Cell is empty or contains a different number
-            if (cellButton.getText().isEmpty()) {
-                filledCellCount++;
-            }
-            cellButton.setText(String.valueOf(selectedNumber));
-            boardState.getJSONArray(row).put(col, selectedNumber);
+    void updateCell(int cellIndex) {
+        int oldDigit = board.get(cellIndex);
 
-            // Check if board is completely filled
-            if (filledCellCount == boardSize * boardSize) {
-                validateSolution();
-            }
-        } else {
-            // Cell already contains the selected number, so clear it
-            cellButton.setText("");
-            filledCellCount--;
-            boardState.getJSONArray(row).put(col, 0);
-        }
+        // Clicking a cell that already holds the selected number clears it
+        int newDigit = oldDigit != selectedNumber ? selectedNumber : 0;
+        journal.record(cellIndex, oldDigit, newDigit);
+        setCell(cellIndex, newDigit);
     }
 
     /**
-     * Validates the current board state to check if the puzzle is solved correctly.
-     * Checks that all rows, columns, and regions contain distinct numbers.
-     * If valid, marks the level as completed.
+     * Undoes the last move, if any.
      */
-    void validateSolution() {
-        // Check all rows for distinct numbers
-        for (int row = 0; row < boardSize; row++) {
-            JSONArray rowData = boardState.getJSONArray(row);
-            Set<Object> numbersInRow = new HashSet<>();
-            for (int col = 0; col < boardSize; col++) {
-                numbersInRow.add(rowData.getInt(col));
-            }
-            if (numbersInRow.size() < boardSize) {
-                return; // Row has duplicate numbers
-            }
+    void undo() {
+        if (journal.canUndo()) {
+            int move = journal.undo();
+            setCell(MoveJournal.cell(move), MoveJournal.oldDigit(move));
         }
+    }
 
-        // Check all columns for distinct numbers
-        for (int col = 0; col < boardSize; col++) {
-            Set<Object> numbersInColumn = new HashSet<>();
-            for (int row = 0; row < boardSize; row++) {
-                numbersInColumn.add(boardState.getJSONArray(row).getInt(col));
-            }
-            if (numbersInColumn.size() < boardSize) {
-                return; // Column has duplicate numbers
-            }
+    /**
+     * Redoes the last undone move, if any.
+     */
+    void redo() {
+        if (journal.canRedo()) {
+            int move = journal.redo();
+            setCell(MoveJournal.cell(move), MoveJournal.newDigit(move));
         }
+    }
 
-        // Check all regions for distinct numbers
-        ArrayList<Set<Object>> numbersInRegions = new ArrayList<>();
-        for (int i = 0; i < boardSize; i++) {
-            numbersInRegions.add(new HashSet<>());
+    /**
+     * Resets the board by undoing every move, so the reset itself can be redone.
+     */
+    void reset() {
+        completionPopup.setVisible(false);
+        while (journal.canUndo()) {
+            undo();
         }
+    }
 
-        for (int row = 0; row < boardSize; row++) {
-            JSONArray rowData = boardState.getJSONArray(row);
-            JSONArray regionRow = regionAssignments.getJSONArray(row);
-            for (int col = 0; col < boardSize; col++) {
-                int cellValue = rowData.getInt(col);
-                int regionId = regionRow.getInt(col);
-                numbersInRegions.get(regionId).add(cellValue);
-            }
+    /**
+     * Writes a digit into a cell and updates the board, the hint candidates and the
+     * cell on screen, then checks for solution completion.
+     *
+     * @param cellIndex The cell index
+     * @param digit The digit to place, or 0 to clear the cell
+     */
+    void setCell(int cellIndex, int digit) {
+        if (digit != 0) {
+            board.place(cellIndex, digit);
+        } else {
+            board.clear(cellIndex);
         }
+        boardView.repaintCell(cellIndex);
+        hintEngine.cellChanged(cellIndex);
+        clearHint();
+        validateSolution();
+    }
 
-        for (int regionId = 0; regionId < boardSize; regionId++) {
-            if (numbersInRegions.get(regionId).size() != boardSize) {
-                return; // Region has duplicate numbers
+    /**
+     * Highlights the next logically deducible cell and explains why it can be filled.
+     */
+    void showHint() {
+        clearHint();
+        HintEngine.Hint hint = hintEngine.nextHint();
+        if (hint == null) {
+            if (!board.isSolved()) {
+                hintLabel.setText("No hint available for this board.");
             }
+            return;
         }
 
-        // All checks passed - puzzle is solved!
-        markLevelAsCompleted();
+        boardView.setHintedCell(hint.cell);
+        hintLabel.setText("<html><div style='text-align:center'>" + hint.reason + "</div></html>");
     }
 
     /**
-     * Marks the level as completed in the levels data file and displays a completion popup.
-     * Updates the JSON file to persist the completion status.
+     * Removes the highlight and message of the current hint, if any.
      */
-    void markLevelAsCompleted() {
-        try {
-            // Update level completion status
-            levelData.put("completed", true);
-            levelsArray.put(levelId, levelData);
-
-            // Save to file
-            FileWriter writer = new FileWriter(
-                    getUserDataPath("Levels.json").toFile(), false);
-            writer.write(levelsArray.toString());
-            writer.close();
-        } catch (IOException ie) {
-            ie.printStackTrace();
+    void clearHint() {
+        boardView.setHintedCell(-1);
+        hintLabel.setText("");
+    }
+
+    /**
+     * Validates the current board state to check if the puzzle is solved correctly.
+     * The board tracks filled cells and repeated digits as moves are made,
+     * so this check does not scan the board.
+     * If valid, marks the level as completed.
+     */
+    void validateSolution() {
+        if (board.isSolved()) {
+            // All checks passed - puzzle is solved!
+            markLevelAsCompleted();
+        } else if (board.isFull()) {
+            hintLabel.setText("The board is full, but some numbers repeat.");
         }
+    }
+
+    /**
+     * Marks the level as completed and displays a completion popup.
+     * The completion and solve time are appended to the progress log in the background.
+     */
+    void markLevelAsCompleted() {
+        // Record level completion status, solve time and the solved board
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        ProgressStore.get().markCompleted(levelId, board.cells, elapsedMillis);
 
         // Create and display completion popup
         JPanel popupPanel = new JPanel();
@@ -325,6 +340,9 @@ public class Level {
         popupPanel.setBorder(BorderFactory.createLineBorder(Color.BLACK));
         popupPanel.setBackground(Color.WHITE);
         popupPanel.add(completionMessage);
+
+        // Undo and redo can solve the level again, so replace any earlier popup content
+        completionPopup.getContentPane().removeAll();
         completionPopup.add(popupPanel);
 
         completionPopup.setVisible(true);
@@ -0,0 +1,299 @@
+package org.game;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.util.function.IntConsumer;
+import javax.swing.*;
+
+/**
+ * Scrollable list of the levels in the catalog.
+ * Rows have a fixed size, so the list never measures rows and only the visible ones are
+ * asked from the catalog and painted; the catalog decodes a level the first time its
+ * row comes into view. One renderer draws every row, so the number of components does
+ * not grow with the catalog. Each row shows a preview of the level, rendered in the
+ * background the first time the row is shown.
+ */
+public class LevelBrowser extends JScrollPane {
+    /** Height of one row: a level button and the gap below it. */
+    static final int ROW_HEIGHT = 110;
+
+    /** Width of one row: the level button, the preview and the level details. */
+    static final int ROW_WIDTH = 440;
+
+    /** Horizontal extent of the clickable part of a row: the level button and the preview. */
+    private static final int CLICK_LEFT = 10;
+    private static final int CLICK_RIGHT = 150 + LevelThumbnails.THUMBNAIL_SIZE;
+
+    private final CatalogModel model;
+    private final JList<LevelRecord> list;
+    private final LevelThumbnails thumbnails;
+    private int hoveredIndex = -1;
+
+    /**
+     * List model that reads levels from the catalog when the list asks for them.
+     */
+    static class CatalogModel extends AbstractListModel<LevelRecord> {
+        private final LevelCatalog catalog;
+        private int size;
+
+        /**
+         * Constructs a model over a catalog. It is empty until refreshed.
+         *
+         * @param catalog The level catalog
+         */
+        CatalogModel(LevelCatalog catalog) {
+            this.catalog = catalog;
+        }
+
+        /**
+         * Re-reads the number of levels and tells the list that every row may have
+         * changed, for example after a level was completed or the catalog was reloaded.
+         */
+        void refresh() {
+            int oldSize = size;
+            try {
+                size = catalog.size();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                size = 0;
+            }
+            if (size < oldSize) {
+                fireIntervalRemoved(this, size, oldSize - 1);
+            } else if (size > oldSize) {
+                fireIntervalAdded(this, oldSize, size - 1);
+            }
+            if (size > 0) {
+                fireContentsChanged(this, 0, size - 1);
+            }
+        }
+
+        /**
+         * Returns the number of levels.
+         *
+         * @return The level count as of the last refresh
+         */
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Returns a level, decoding it on first use.
+         *
+         * @param index The position of the level in the catalog
+         * @return The level, or null if it cannot be read
+         */
+        @Override
+        public LevelRecord getElementAt(int index) {
+            try {
+                return catalog.level(index);
+            } catch (IOException | RuntimeException ex) {
+                ex.printStackTrace();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Draws one row: a rounded level button, the level preview and the level details.
+     */
+    class RowRenderer extends JPanel implements ListCellRenderer<LevelRecord> {
+        private final RoundedButton button = new RoundedButton();
+        private final Font detailsFont = new Font("Calibri", Font.BOLD, 20);
+        private final String[] detailLines = new String[4];
+        private int detailLineCount;
+        private Image thumbnail;
+
+        /**
+         * Constructs the renderer.
+         */
+        RowRenderer() {
+            setLayout(null);
+            setOpaque(false);
+            button.setRadius(20);
+            button.setBounds(CLICK_LEFT, 0, 130, 100);
+            add(button);
+        }
+
+        /**
+         * Prepares the renderer to draw one level.
+         *
+         * @param list The level list
+         * @param levelRecord The level, or null if it could not be read
+         * @param index The row index
+         * @param isSelected Ignored; levels open on click instead of being selected
+         * @param cellHasFocus Ignored
+         * @return This renderer
+         */
+        @Override
+        public Component getListCellRendererComponent(JList<? extends LevelRecord> list, LevelRecord levelRecord,
+                                                      int index, boolean isSelected, boolean cellHasFocus) {
+            button.setText("Level " + (index + 1));
+            detailLineCount = 0;
+            thumbnail = null;
+            if (levelRecord == null) {
+                button.setBgColour(Color.LIGHT_GRAY);
+                detailLines[detailLineCount++] = "Unavailable";
+                return this;
+            }
+
+            // Set button colour based on completion status, or hover
+            ProgressStore progress = ProgressStore.get();
+            boolean completed = progress.isCompleted(levelRecord);
+            if (index == hoveredIndex) {
+                button.setBgColour(RoundedButton.HOVER_COLOUR);
+            } else if (completed) {
+                button.setBgColour(GameFrame.COMPLETED_COLOUR); // Gold for completed
+            } else if (index % 2 == 0) {
+                button.setBgColour(GameFrame.LEVEL_COLOUR); // Blue
+            } else {
+                button.setBgColour(Color.WHITE);
+            }
+
+            // Level details
+            detailLines[detailLineCount++] = "Board size: " + levelRecord.size + "x" + levelRecord.size;
+            detailLines[detailLineCount++] = "Difficulty: " + levelRecord.difficulty;
+            detailLines[detailLineCount++] = "Completed: " + completed;
+            ProgressStore.Progress levelProgress = progress.get(levelRecord.id);
+            if (levelProgress != null && levelProgress.bestTimeMillis > 0) {
+                detailLines[detailLineCount++] = "Best time: " + GameFrame.formatTime(levelProgress.bestTimeMillis);
+            }
+
+            // A preview that is not ready yet repaints this row when it is
+            thumbnail = thumbnails.thumbnail(levelRecord, () -> repaintRow(index));
+            return this;
+        }
+
+        /**
+         * Draws the preview, and the level details as plain lines of text, which is much
+         * cheaper than an HTML label for a row that is drawn again on every scroll.
+         *
+         * @param g The Graphics context to paint on
+         */
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g;
+            int previewTop = (button.getHeight() - LevelThumbnails.THUMBNAIL_SIZE) / 2;
+            if (thumbnail != null) {
+                g2.drawImage(thumbnail, 150, previewTop, null);
+            } else if (detailLineCount > 1) {
+                // Placeholder while the preview renders
+                g2.setColor(new Color(0, 0, 0, 40));
+                g2.fillRect(150, previewTop, LevelThumbnails.THUMBNAIL_SIZE, LevelThumbnails.THUMBNAIL_SIZE);
+            }
+
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2.setFont(detailsFont);
+            g2.setColor(Color.BLACK);
+            FontMetrics metrics = g2.getFontMetrics();
+            int lineHeight = metrics.getHeight();
+            int y = (button.getHeight() - lineHeight * detailLineCount) / 2 + metrics.getAscent();
+            for (int line = 0; line < detailLineCount; line++) {
+                g2.drawString(detailLines[line], 255, y);
+                y += lineHeight;
+            }
+        }
+    }
+
+    /**
+     * Constructs a browser over a catalog.
+     *
+     * @param catalog The level catalog
+     * @param thumbnails The cache of level previews
+     * @param onLevelClicked Receives the index of the level the player clicks
+     */
+    LevelBrowser(LevelCatalog catalog, LevelThumbnails thumbnails, IntConsumer onLevelClicked) {
+        this.thumbnails = thumbnails;
+        model = new CatalogModel(catalog);
+        list = new JList<>(model);
+        list.setFixedCellHeight(ROW_HEIGHT);
+        list.setFixedCellWidth(ROW_WIDTH);
+        list.setCellRenderer(new RowRenderer());
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setOpaque(false);
+        list.setFocusable(false);
+
+        MouseAdapter mouseHandler = new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent mouseEvent) {
+                int index = rowAt(mouseEvent.getPoint());
+                if (index >= 0 && model.getElementAt(index) != null) {
+                    onLevelClicked.accept(index);
+                }
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent mouseEvent) {
+                setHoveredIndex(rowAt(mouseEvent.getPoint()));
+            }
+
+            @Override
+            public void mouseExited(MouseEvent mouseEvent) {
+                setHoveredIndex(-1);
+            }
+        };
+        list.addMouseListener(mouseHandler);
+        list.addMouseMotionListener(mouseHandler);
+
+        setViewportView(list);
+        setOpaque(false);
+        getViewport().setOpaque(false);
+        setBorder(BorderFactory.createEmptyBorder());
+        setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        getVerticalScrollBar().setUnitIncrement(ROW_HEIGHT / 4);
+    }
+
+    /**
+     * Re-reads the catalog size and redraws the visible rows, so completion colours and
+     * best times are up to date.
+     */
+    void refresh() {
+        model.refresh();
+    }
+
+    /**
+     * Finds the level button or preview under a point of the list. The gap between rows
+     * and the details text do not count.
+     *
+     * @param point The point in list coordinates
+     * @return The row index, or -1 if the point is not on a level button or preview
+     */
+    int rowAt(Point point) {
+        if (point.y < 0 || point.x < CLICK_LEFT || point.x >= CLICK_RIGHT) {
+            return -1;
+        }
+        int index = point.y / ROW_HEIGHT;
+        if (index >= model.getSize() || point.y % ROW_HEIGHT >= 100) {
+            return -1;
+        }
+        return index;
+    }
+
+    /**
+     * Moves the hover highlight, repainting only the rows it leaves and enters.
+     *
+     * @param index The hovered row, or -1 for none
+     */
+    private void setHoveredIndex(int index) {
+        if (index == hoveredIndex) {
+            return;
+        }
+        int previous = hoveredIndex;
+        hoveredIndex = index;
+        repaintRow(previous);
+        repaintRow(index);
+    }
+
+    /**
+     * Schedules a repaint of one row.
+     *
+     * @param index The row index, or -1 to do nothing
+     */
+    private void repaintRow(int index) {
+        if (index >= 0 && index < model.getSize()) {
+            list.repaint(0, index * ROW_HEIGHT, ROW_WIDTH, ROW_HEIGHT);
+        }
+    }
+}
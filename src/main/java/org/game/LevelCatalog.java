@@ -0,0 +1,154 @@
+package org.game;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+
+import static org.game.FileManager.getUserDataPath;
+
+/**
+ * Shared, lazily decoded view of the level catalog.
+ * The catalog is opened once through its level pack and each level is decoded the first
+ * time it is asked for, after which the same immutable record is handed out again.
+ * A background thread watches the catalog's directory and drops the cached state when
+ * Levels.json changes on disk, so the next request reloads it.
+ */
+public class LevelCatalog {
+    private static LevelCatalog instance;
+
+    private final Path catalogPath;
+    private LevelPack pack;
+    private LevelRecord[] levels;
+
+    /**
+     * Constructs a catalog cache for a catalog file. Nothing is read until a level is
+     * requested.
+     *
+     * @param catalogPath The catalog in the Levels.json schema
+     */
+    LevelCatalog(Path catalogPath) {
+        this.catalogPath = catalogPath;
+    }
+
+    /**
+     * Returns the shared catalog for the user's Levels.json, starting its file watcher
+     * on first use.
+     *
+     * @return The shared level catalog
+     */
+    static synchronized LevelCatalog get() {
+        if (instance == null) {
+            instance = new LevelCatalog(getUserDataPath("Levels.json"));
+            instance.startWatching();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the number of levels in the catalog.
+     *
+     * @return The level count
+     * @throws IOException If the catalog cannot be loaded
+     */
+    synchronized int size() throws IOException {
+        load();
+        return levels.length;
+    }
+
+    /**
+     * Returns one level, decoding it on first use.
+     *
+     * @param index The position of the level in the catalog
+     * @return The level record
+     * @throws IOException If the catalog cannot be loaded
+     */
+    synchronized LevelRecord level(int index) throws IOException {
+        load();
+        if (levels[index] == null) {
+            levels[index] = pack.read(index);
+        }
+        return levels[index];
+    }
+
+    /**
+     * Drops the cached catalog so the next request reads it again.
+     */
+    synchronized void invalidate() {
+        pack = null;
+        levels = null;
+    }
+
+    /**
+     * Opens the catalog if it is not cached. The level pack is used when it can be
+     * built; otherwise, for example when the old pack is still mapped and cannot be
+     * replaced, every level is decoded straight from the JSON.
+     *
+     * @throws IOException If the catalog cannot be read at all
+     */
+    private void load() throws IOException {
+        if (levels != null) {
+            return;
+        }
+        try {
+            pack = LevelPack.forCatalog(catalogPath);
+            levels = new LevelRecord[pack.size()];
+        } catch (IOException ex) {
+            System.err.println("Level pack unavailable, reading " + catalogPath + " directly: " + ex);
+            try (Reader catalog = Files.newBufferedReader(catalogPath, StandardCharsets.UTF_8)) {
+                List<LevelRecord> records = LevelPack.readJson(catalog);
+                pack = null;
+                levels = records.toArray(new LevelRecord[0]);
+            }
+        }
+    }
+
+    /**
+     * Starts a daemon thread that invalidates the cache whenever the catalog file is
+     * created, modified or deleted. If the file system cannot be watched the cache is
+     * simply never invalidated.
+     */
+    private void startWatching() {
+        Path directory = catalogPath.toAbsolutePath().getParent();
+        Path fileName = catalogPath.getFileName();
+        WatchService watchService;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return;
+        }
+
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        // Other files in the directory, such as Levels.pack, are ignored
+                        if (fileName.equals(event.context())
+                                || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            invalidate();
+                        }
+                    }
+                    if (!key.reset()) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                // The watcher stops with the application
+            }
+        }, "catalog-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+}
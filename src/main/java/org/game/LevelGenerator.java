@@ -0,0 +1,357 @@
+package org.game;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Procedural generator for puzzles with arbitrary regions.
+ * Generation runs in three stages: the grid is split into N connected regions of N cells,
+ * a random solution is filled in, and clues are removed one at a time for as long as the
+ * puzzle keeps a unique solution. Puzzles are generated in parallel, one per task, and
+ * emitted as entries of the Levels.json schema.
+ */
+public class LevelGenerator {
+    /** Random region swaps attempted per cell when shaping the regions. */
+    private static final int SWAPS_PER_CELL = 30;
+
+    /** Placements allowed while filling a solution before the layout is abandoned. */
+    private static final int FILL_BUDGET = 200_000;
+
+    /** Attempts to fill a solution before a new region layout is drawn. */
+    private static final int FILL_ATTEMPTS = 3;
+
+    /** Search nodes allowed when proving that a clue can be removed. */
+    private static final long UNIQUENESS_BUDGET = 50_000;
+
+    private final int size;
+
+    /**
+     * Constructs a generator for square boards of the given size.
+     *
+     * @param size The board size N
+     */
+    LevelGenerator(int size) {
+        if (size < 2 || size > Board.MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported board size: " + size);
+        }
+        this.size = size;
+    }
+
+    /**
+     * Generates one puzzle, running all three stages until they succeed.
+     *
+     * @param id The id to store in the level entry
+     * @param random The random source for this puzzle
+     * @return A level entry with a unique solution
+     */
+    JSONObject generate(int id, Random random) {
+        while (true) {
+            byte[] regions = partitionRegions(size, random);
+            for (int attempt = 0; attempt < FILL_ATTEMPTS; attempt++) {
+                Board solution = fillSolution(size, regions, random);
+                if (solution != null) {
+                    removeClues(solution, random);
+
+                    JSONObject levelData = solution.toJson();
+                    levelData.put("id", id);
+                    levelData.put("difficulty", DifficultyRater.rate(Board.fromJson(levelData)));
+                    levelData.put("completed", false);
+                    return levelData;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stage one: splits the grid into N connected regions of N cells.
+     * Starts from one region per row and then repeatedly moves a boundary cell into its
+     * neighbour's region while moving another cell back, keeping each swap only if both
+     * regions stay connected.
+     *
+     * @param size The board size
+     * @param random The random source
+     * @return Region id of every cell in row-major order
+     */
+    static byte[] partitionRegions(int size, Random random) {
+        int cellCount = size * size;
+        int[] regionIds = new int[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            regionIds[i] = i / size;
+        }
+
+        int[] neighbours = new int[4];
+        int[] returnCells = new int[cellCount];
+        for (int swap = 0; swap < cellCount * SWAPS_PER_CELL; swap++) {
+            // Pick a cell on the border between two regions
+            int moved = random.nextInt(cellCount);
+            int from = regionIds[moved];
+            int neighbourCount = neighboursOf(size, moved, neighbours);
+            int into = regionIds[neighbours[random.nextInt(neighbourCount)]];
+            if (into == from) {
+                continue;
+            }
+
+            // Pick a cell of the other region that can move back in exchange
+            regionIds[moved] = into;
+            int returnCount = 0;
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (cell != moved && regionIds[cell] == into && touchesRegion(size, regionIds, cell, from)) {
+                    returnCells[returnCount++] = cell;
+                }
+            }
+            if (returnCount == 0) {
+                regionIds[moved] = from;
+                continue;
+            }
+            int returned = returnCells[random.nextInt(returnCount)];
+            regionIds[returned] = from;
+
+            if (Board.connectedRegionSize(size, regionIds, moved) != size
+                    || Board.connectedRegionSize(size, regionIds, returned) != size) {
+                regionIds[moved] = from;
+                regionIds[returned] = into;
+            }
+        }
+
+        byte[] regions = new byte[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            regions[i] = (byte) regionIds[i];
+        }
+        return regions;
+    }
+
+    /**
+     * Lists the orthogonal neighbours of a cell.
+     *
+     * @param size The board size
+     * @param cell The cell index
+     * @param neighbours Receives the neighbour indices
+     * @return The number of neighbours written
+     */
+    private static int neighboursOf(int size, int cell, int[] neighbours) {
+        int count = 0;
+        int row = cell / size;
+        int col = cell % size;
+        if (row > 0) {
+            neighbours[count++] = cell - size;
+        }
+        if (row < size - 1) {
+            neighbours[count++] = cell + size;
+        }
+        if (col > 0) {
+            neighbours[count++] = cell - 1;
+        }
+        if (col < size - 1) {
+            neighbours[count++] = cell + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether a cell has an orthogonal neighbour in the given region.
+     *
+     * @param size The board size
+     * @param regionIds Region id of every cell
+     * @param cell The cell index
+     * @param region The region to look for
+     * @return true if a neighbour belongs to the region
+     */
+    private static boolean touchesRegion(int size, int[] regionIds, int cell, int region) {
+        int row = cell / size;
+        int col = cell % size;
+        return (row > 0 && regionIds[cell - size] == region)
+                || (row < size - 1 && regionIds[cell + size] == region)
+                || (col > 0 && regionIds[cell - 1] == region)
+                || (col < size - 1 && regionIds[cell + 1] == region);
+    }
+
+    /**
+     * Stage two: fills a random valid solution for the region layout.
+     * Some layouts have no solution or a very deep search, so the fill gives up after a
+     * fixed number of placements.
+     *
+     * @param size The board size
+     * @param regions Region id of every cell
+     * @param random The random source
+     * @return A full board, or null if no solution was found within the budget
+     */
+    static Board fillSolution(int size, byte[] regions, Random random) {
+        Board board = new Board(size, regions);
+        int[] budget = {FILL_BUDGET};
+        return fillRandomly(board, random, budget) ? board : null;
+    }
+
+    /**
+     * Depth-first fill trying the candidates of each branching cell in random order.
+     *
+     * @param board The board being filled
+     * @param random The random source
+     * @param budget Remaining placements, shared across the whole search
+     * @return true once the board is full; on false the board is left as it was
+     */
+    private static boolean fillRandomly(Board board, Random random, int[] budget) {
+        int move = ParallelSolver.nextMove(board);
+        if (move == ParallelSolver.SOLVED) {
+            return true;
+        }
+        if (move == ParallelSolver.DEAD_END || --budget[0] < 0) {
+            return false;
+        }
+
+        int cell = move >>> 5;
+        int forcedDigit = move & 31;
+        int candidates = forcedDigit != 0 ? 1 << (forcedDigit - 1) : board.candidates(cell);
+        while (candidates != 0) {
+            // Pick one of the remaining candidates at random
+            int pick = random.nextInt(Integer.bitCount(candidates));
+            int bit = candidates;
+            for (int k = 0; k < pick; k++) {
+                bit &= bit - 1;
+            }
+            bit &= -bit;
+            candidates &= ~bit;
+
+            board.place(cell, Integer.numberOfTrailingZeros(bit) + 1);
+            if (fillRandomly(board, random, budget)) {
+                return true;
+            }
+            board.clear(cell);
+            if (budget[0] < 0) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stage three: removes clues in random order, keeping each removal only if the
+     * puzzle still has exactly one solution.
+     * Since the known solution remains valid, the removal is safe exactly when no solution
+     * puts a different digit in the freed cell, which is a single search rather than a
+     * count to two. A clue whose removal cannot be proven safe within the budget is kept.
+     * On return the cells still hold the full solution and the fixed flags mark the clues.
+     *
+     * @param solution A full board holding the solution
+     * @param random The random source
+     */
+    static void removeClues(Board solution, Random random) {
+        int cellCount = solution.cellCount;
+        int[] order = new int[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            order[i] = i;
+        }
+        for (int i = cellCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        Board clues = solution.copy();
+        for (int cell : order) {
+            int digit = clues.get(cell);
+            clues.clear(cell);
+            DancingLinksSolver solver = new DancingLinksSolver(clues);
+            solver.exclude(cell, digit);
+            solver.setNodeLimit(UNIQUENESS_BUDGET);
+            if (solver.countSolutions(1) != 0 || solver.isNodeLimitReached()) {
+                clues.place(cell, digit);
+            }
+        }
+
+        for (int i = 0; i < cellCount; i++) {
+            solution.fixed[i] = clues.get(i) != 0;
+        }
+    }
+
+    /**
+     * Generates puzzles on a pool of worker threads.
+     *
+     * @param size The board size
+     * @param count The number of puzzles to generate
+     * @param threads The number of worker threads
+     * @param firstId The id of the first puzzle; the others follow consecutively
+     * @return The level entries in id order
+     * @throws InterruptedException If the calling thread is interrupted while waiting
+     */
+    static List<JSONObject> generateAll(int size, int count, int threads, int firstId)
+            throws InterruptedException {
+        LevelGenerator generator = new LevelGenerator(size);
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "level-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<JSONObject>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int id = firstId + i;
+                futures.add(workers.submit(() -> generator.generate(id, ThreadLocalRandom.current())));
+            }
+
+            List<JSONObject> levels = new ArrayList<>();
+            for (Future<JSONObject> future : futures) {
+                levels.add(future.get());
+            }
+            return levels;
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Level generation failed", ex.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Generates a catalog and writes it as a JSON array to a file or standard output.
+     * The generation rate is reported on standard error.
+     * Usage: LevelGenerator &lt;size&gt; &lt;count&gt; [threads] [output.json] [firstId]
+     *
+     * @param args The board size, puzzle count, and optionally threads, output path and first id
+     * @throws IOException If the output cannot be written
+     * @throws InterruptedException If generation is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: LevelGenerator <size> <count> [threads] [output.json] [firstId]");
+            return;
+        }
+        int size = Integer.parseInt(args[0]);
+        int count = Integer.parseInt(args[1]);
+        int threads = args.length > 2
+                ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int firstId = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+
+        long start = System.nanoTime();
+        List<JSONObject> levels = generateAll(size, count, threads, firstId);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        JSONArray levelsArray = new JSONArray();
+        for (JSONObject levelData : levels) {
+            levelsArray.put(levelData);
+        }
+        if (args.length > 3) {
+            try (Writer writer = Files.newBufferedWriter(Paths.get(args[3]), StandardCharsets.UTF_8)) {
+                writer.write(levelsArray.toString());
+            }
+        } else {
+            System.out.println(levelsArray);
+        }
+
+        System.err.printf("Generated %d %dx%d puzzles in %.2f s on %d threads (%.2f puzzles/s)%n",
+                count, size, size, seconds, threads, count / seconds);
+    }
+}
@@ -0,0 +1,397 @@
+package org.game;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONTokener;
+
+/**
+ * Read-only binary level catalog that is memory-mapped and decoded one level at a time.
+ * Opening a pack only checks its header, so it takes the same time however many levels
+ * it holds, and reading a level decodes just that level's record.
+ *
+ * Layout, big-endian:
+ * <pre>
+ * header   int magic "AMOP", int version, long catalog size, long catalog modification
+ *          time in milliseconds, int level count
+ * index    int offset of each record from the start of the file
+ * record   int id, byte size, byte flags (bit 0: completed),
+ *          byte difficulty length, difficulty in UTF-8,
+ *          bit-packed cells, most significant bit first:
+ *          N*N tiles of bitsFor(N) bits, N*N fixed flags of 1 bit,
+ *          N*N region ids of bitsFor(N - 1) bits, padded to a whole byte
+ * </pre>
+ * Offsets are ints because a single mapping is limited to 2 GB. The catalog size and
+ * modification time identify the catalog the pack was built from; a pack built by hand
+ * stores those of its input file.
+ */
+public class LevelPack {
+    static final int MAGIC = 0x414D4F50;
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 28;
+
+    private final ByteBuffer buffer;
+    private final int levelCount;
+
+    /**
+     * Constructs a pack over a buffer holding a whole pack file.
+     *
+     * @param buffer The pack contents
+     * @throws IOException If the header is not a valid pack header
+     */
+    LevelPack(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a level pack");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported level pack version " + buffer.getInt(4));
+        }
+        levelCount = buffer.getInt(24);
+        if (levelCount < 0 || HEADER_BYTES + 4L * levelCount > buffer.capacity()) {
+            throw new IOException("Level pack index is truncated");
+        }
+    }
+
+    /**
+     * Maps a pack file into memory. Nothing beyond the header is read until a level is
+     * requested.
+     *
+     * @param path The pack file
+     * @return The opened pack
+     * @throws IOException If the file cannot be mapped or is not a valid pack
+     */
+    static LevelPack open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Level pack is larger than 2 GB: " + path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new LevelPack(mapped);
+        }
+    }
+
+    /**
+     * Opens the pack built from a JSON catalog, rebuilding it first unless it was built
+     * from a catalog of the same size and modification time. The pack's own timestamp is
+     * not used, as a catalog edited within the file system's timestamp resolution of the
+     * last build would look older than the pack. The pack is written next to the catalog
+     * as Levels.pack.
+     *
+     * @param catalogPath The catalog in the Levels.json schema
+     * @return The opened pack
+     * @throws IOException If the catalog cannot be converted or the pack cannot be opened
+     */
+    static LevelPack forCatalog(Path catalogPath) throws IOException {
+        Path packPath = catalogPath.resolveSibling("Levels.pack");
+        // Taken before reading, so a catalog changed while it is read is rebuilt next time
+        long catalogSize = Files.size(catalogPath);
+        long catalogModified = Files.getLastModifiedTime(catalogPath).toMillis();
+        if (!isBuiltFrom(packPath, catalogSize, catalogModified)) {
+            try (Reader catalog = Files.newBufferedReader(catalogPath, StandardCharsets.UTF_8)) {
+                byte[] pack = encode(readJson(catalog), catalogSize, catalogModified);
+                AtomicFileWriter.write(packPath, ByteBuffer.wrap(pack));
+            }
+        }
+        return open(packPath);
+    }
+
+    /**
+     * Checks whether a pack file exists, is of the current version and was built from a
+     * catalog of the given size and modification time. Only the header is read, and the
+     * file is not mapped, so it can be replaced straight after.
+     *
+     * @param packPath The pack file
+     * @param catalogSize The catalog size in bytes
+     * @param catalogModified The catalog modification time in milliseconds
+     * @return true if the pack is up to date, false if it must be rebuilt
+     */
+    private static boolean isBuiltFrom(Path packPath, long catalogSize, long catalogModified) {
+        if (!Files.exists(packPath)) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        try (FileChannel channel = FileChannel.open(packPath, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Read until the header is complete or the file ends
+            }
+        } catch (IOException ex) {
+            return false;
+        }
+        return !header.hasRemaining() && header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+                && header.getLong(8) == catalogSize && header.getLong(16) == catalogModified;
+    }
+
+    /**
+     * Returns the number of levels in the pack.
+     *
+     * @return The level count
+     */
+    int size() {
+        return levelCount;
+    }
+
+    /**
+     * Decodes one level.
+     *
+     * @param index The position of the level in the pack
+     * @return The decoded level
+     * @throws IndexOutOfBoundsException If there is no level at the position
+     * @throws IllegalStateException If the record is damaged
+     */
+    LevelRecord read(int index) {
+        if (index < 0 || index >= levelCount) {
+            throw new IndexOutOfBoundsException("Level " + index + " of " + levelCount);
+        }
+        ByteBuffer record = buffer.duplicate();
+        try {
+            record.position(buffer.getInt(HEADER_BYTES + 4 * index));
+            int id = record.getInt();
+            int size = record.get();
+            int flags = record.get();
+            byte[] difficulty = new byte[record.get() & 0xFF];
+            record.get(difficulty);
+            if (size < 1 || size > Board.MAX_SIZE) {
+                throw new IllegalStateException("Level " + index + " has an invalid size " + size);
+            }
+
+            int cellCount = size * size;
+            int tileBits = bitsFor(size);
+            int regionBits = bitsFor(size - 1);
+            int base = record.position();
+            long bit = 0;
+
+            int[] tiles = new int[cellCount];
+            boolean[] fixed = new boolean[cellCount];
+            byte[] regions = new byte[cellCount];
+            for (int i = 0; i < cellCount; i++, bit += tileBits) {
+                tiles[i] = readBits(record, base, bit, tileBits);
+            }
+            for (int i = 0; i < cellCount; i++, bit++) {
+                fixed[i] = readBits(record, base, bit, 1) == 1;
+            }
+            for (int i = 0; i < cellCount; i++, bit += regionBits) {
+                regions[i] = (byte) readBits(record, base, bit, regionBits);
+            }
+            return new LevelRecord(id, size, new String(difficulty, StandardCharsets.UTF_8),
+                    (flags & 1) != 0, tiles, fixed, regions);
+        } catch (IndexOutOfBoundsException | BufferUnderflowException ex) {
+            throw new IllegalStateException("Level " + index + " is truncated", ex);
+        }
+    }
+
+    /**
+     * Returns the number of bits needed to store values from 0 to max.
+     *
+     * @param max The largest value
+     * @return The bit width, at least 1
+     */
+    static int bitsFor(int max) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(max));
+    }
+
+    /**
+     * Reads a value of up to 9 bits from a bit stream, most significant bit first.
+     *
+     * @param buffer The buffer holding the stream
+     * @param base The byte offset where the stream starts
+     * @param bit The bit offset of the value within the stream
+     * @param width The width of the value in bits
+     * @return The value
+     */
+    private static int readBits(ByteBuffer buffer, int base, long bit, int width) {
+        int byteIndex = base + (int) (bit >>> 3);
+        int shift = (int) (bit & 7);
+        int window = (buffer.get(byteIndex) & 0xFF) << 8;
+        if (shift + width > 8) {
+            window |= buffer.get(byteIndex + 1) & 0xFF;
+        }
+        return window >>> (16 - shift - width) & ((1 << width) - 1);
+    }
+
+    /**
+     * Encodes levels into the pack format.
+     *
+     * @param levels The levels in catalog order
+     * @param catalogSize The size in bytes of the catalog the levels were read from
+     * @param catalogModified The modification time in milliseconds of that catalog
+     * @return The pack contents
+     * @throws IOException If a level cannot be encoded
+     */
+    static byte[] encode(List<LevelRecord> levels, long catalogSize, long catalogModified) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream recordOut = new DataOutputStream(records);
+        int[] offsets = new int[levels.size()];
+        int recordsStart = HEADER_BYTES + 4 * levels.size();
+
+        for (int i = 0; i < levels.size(); i++) {
+            LevelRecord level = levels.get(i);
+            offsets[i] = recordsStart + records.size();
+            byte[] difficulty = level.difficulty.getBytes(StandardCharsets.UTF_8);
+            if (difficulty.length > 255) {
+                throw new IOException("Difficulty label of level " + level.id + " is too long");
+            }
+            recordOut.writeInt(level.id);
+            recordOut.writeByte(level.size);
+            recordOut.writeByte(level.completed ? 1 : 0);
+            recordOut.writeByte(difficulty.length);
+            recordOut.write(difficulty);
+
+            // Pack the grids into one bit stream
+            BitWriter bits = new BitWriter(recordOut);
+            int tileBits = bitsFor(level.size);
+            int regionBits = bitsFor(level.size - 1);
+            int cellCount = level.size * level.size;
+            for (int cell = 0; cell < cellCount; cell++) {
+                bits.write(level.tile(cell), tileBits);
+            }
+            for (int cell = 0; cell < cellCount; cell++) {
+                bits.write(level.isFixed(cell) ? 1 : 0, 1);
+            }
+            for (int cell = 0; cell < cellCount; cell++) {
+                bits.write(level.region(cell), regionBits);
+            }
+            bits.finish();
+        }
+        recordOut.flush();
+        if ((long) recordsStart + records.size() > Integer.MAX_VALUE) {
+            throw new IOException("Level pack would be larger than 2 GB");
+        }
+
+        ByteArrayOutputStream pack = new ByteArrayOutputStream(recordsStart + records.size());
+        DataOutputStream packOut = new DataOutputStream(pack);
+        packOut.writeInt(MAGIC);
+        packOut.writeInt(VERSION);
+        packOut.writeLong(catalogSize);
+        packOut.writeLong(catalogModified);
+        packOut.writeInt(levels.size());
+        for (int offset : offsets) {
+            packOut.writeInt(offset);
+        }
+        records.writeTo(packOut);
+        packOut.flush();
+        return pack.toByteArray();
+    }
+
+    /**
+     * Writes values of a few bits each to a byte stream, most significant bit first.
+     */
+    private static final class BitWriter {
+        private final DataOutputStream out;
+        private int accumulator;
+        private int pending;
+
+        BitWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Appends a value to the stream.
+         *
+         * @param value The value, which must fit in the width
+         * @param width The width of the value in bits, at most 8
+         * @throws IOException If the stream cannot be written
+         */
+        void write(int value, int width) throws IOException {
+            accumulator = accumulator << width | value;
+            pending += width;
+            if (pending >= 8) {
+                pending -= 8;
+                out.writeByte(accumulator >>> pending);
+                accumulator &= (1 << pending) - 1;
+            }
+        }
+
+        /**
+         * Pads the last partial byte with zero bits and writes it.
+         *
+         * @throws IOException If the stream cannot be written
+         */
+        void finish() throws IOException {
+            if (pending > 0) {
+                out.writeByte(accumulator << (8 - pending));
+                pending = 0;
+                accumulator = 0;
+            }
+        }
+    }
+
+    /**
+     * Reads every level of a JSON catalog.
+     *
+     * @param catalog Reader positioned at the start of the JSON array
+     * @return The levels in catalog order
+     */
+    static List<LevelRecord> readJson(Reader catalog) {
+        JSONArray levelsArray = new JSONArray(new JSONTokener(catalog));
+        List<LevelRecord> levels = new ArrayList<>(levelsArray.length());
+        for (int i = 0; i < levelsArray.length(); i++) {
+            levels.add(LevelRecord.fromJson(levelsArray.getJSONObject(i)));
+        }
+        return levels;
+    }
+
+    /**
+     * Converts the pack back to a JSON catalog.
+     *
+     * @return The levels as a JSON array in the Levels.json schema
+     */
+    JSONArray toJson() {
+        JSONArray levelsArray = new JSONArray();
+        for (int i = 0; i < levelCount; i++) {
+            levelsArray.put(read(i).toJson());
+        }
+        return levelsArray;
+    }
+
+    /**
+     * Converts between the JSON catalog and the pack format.
+     * Usage: LevelPack pack &lt;levels.json&gt; &lt;levels.pack&gt;
+     * or LevelPack unpack &lt;levels.pack&gt; &lt;levels.json&gt;
+     *
+     * @param args The direction, the input path and the output path
+     * @throws IOException If the input cannot be read or the output cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || !(args[0].equals("pack") || args[0].equals("unpack"))) {
+            System.err.println("Usage: LevelPack pack <levels.json> <levels.pack>");
+            System.err.println("       LevelPack unpack <levels.pack> <levels.json>");
+            return;
+        }
+        long start = System.nanoTime();
+        int levelCount;
+        if (args[0].equals("pack")) {
+            Path catalogPath = Paths.get(args[1]);
+            long catalogSize = Files.size(catalogPath);
+            long catalogModified = Files.getLastModifiedTime(catalogPath).toMillis();
+            List<LevelRecord> levels;
+            try (Reader catalog = Files.newBufferedReader(catalogPath, StandardCharsets.UTF_8)) {
+                levels = readJson(catalog);
+            }
+            byte[] pack = encode(levels, catalogSize, catalogModified);
+            AtomicFileWriter.write(Paths.get(args[2]), ByteBuffer.wrap(pack));
+            levelCount = levels.size();
+        } else {
+            LevelPack pack = open(Paths.get(args[1]));
+            try (Writer output = Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+                output.write(pack.toJson().toString());
+            }
+            levelCount = pack.size();
+        }
+        System.err.printf("Converted %d levels in %.1f ms%n", levelCount, (System.nanoTime() - start) / 1e6);
+    }
+}
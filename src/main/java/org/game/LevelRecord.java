@@ -0,0 +1,151 @@
+package org.game;
+
+import org.json.JSONObject;
+
+/**
+ * One decoded entry of a level catalog.
+ * Holds the same data as an entry of the Levels.json schema, with the grids flattened
+ * in row-major order. Records are immutable: the grids are only exposed cell by cell or
+ * as copies, so a cached record can be shared between screens and threads.
+ */
+public class LevelRecord {
+    final int id;
+    final int size;
+    final String difficulty;
+    final boolean completed;
+    private final int[] tiles;
+    private final boolean[] fixed;
+    private final byte[] regions;
+
+    /**
+     * Constructs a level record.
+     *
+     * @param id The level id
+     * @param size The board size N
+     * @param difficulty The difficulty label, for example "easy"
+     * @param completed The completed flag stored in the catalog
+     * @param tiles The solution of every cell, owned by the record from now on
+     * @param fixed Whether each cell is a clue, owned by the record from now on
+     * @param regions The region id of every cell, owned by the record from now on
+     */
+    LevelRecord(int id, int size, String difficulty, boolean completed,
+                int[] tiles, boolean[] fixed, byte[] regions) {
+        this.id = id;
+        this.size = size;
+        this.difficulty = difficulty;
+        this.completed = completed;
+        this.tiles = tiles;
+        this.fixed = fixed;
+        this.regions = regions;
+    }
+
+    /**
+     * Returns the solution digit of a cell.
+     *
+     * @param index The cell index
+     * @return The digit, or 0 if the catalog does not store it
+     */
+    int tile(int index) {
+        return tiles[index];
+    }
+
+    /**
+     * Checks whether a cell is a clue.
+     *
+     * @param index The cell index
+     * @return true if the cell is given at the start
+     */
+    boolean isFixed(int index) {
+        return fixed[index];
+    }
+
+    /**
+     * Returns the region id of a cell.
+     *
+     * @param index The cell index
+     * @return The region id
+     */
+    int region(int index) {
+        return regions[index];
+    }
+
+    /**
+     * Returns a copy of the solution.
+     *
+     * @return The solution digit of every cell in row-major order
+     */
+    int[] solution() {
+        return tiles.clone();
+    }
+
+    /**
+     * Reads a record from an entry of the Levels.json schema.
+     *
+     * @param levelData The level entry
+     * @return The level record
+     */
+    static LevelRecord fromJson(JSONObject levelData) {
+        int size = levelData.getInt("size");
+        if (size < 1 || size > Board.MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported board size: " + size);
+        }
+        int[] tiles = Board.readGrid(levelData.getJSONArray("tiles"), size);
+        int[] fixedMask = Board.readGrid(levelData.getJSONArray("fixed"), size);
+        int[] regionIds = Board.readGrid(levelData.getJSONArray("regions"), size);
+
+        boolean[] fixed = new boolean[tiles.length];
+        byte[] regions = new byte[tiles.length];
+        for (int i = 0; i < tiles.length; i++) {
+            if (tiles[i] < 0 || tiles[i] > size) {
+                throw new IllegalArgumentException("Tile out of range at cell " + i);
+            }
+            if (regionIds[i] < 0 || regionIds[i] >= size) {
+                throw new IllegalArgumentException("Region id out of range at cell " + i);
+            }
+            fixed[i] = fixedMask[i] == 1;
+            regions[i] = (byte) regionIds[i];
+        }
+        return new LevelRecord(levelData.getInt("id"), size, levelData.getString("difficulty"),
+                levelData.getBoolean("completed"), tiles, fixed, regions);
+    }
+
+    /**
+     * Converts the record to an entry of the Levels.json schema.
+     *
+     * @return The level entry
+     */
+    JSONObject toJson() {
+        int[] fixedMask = new int[tiles.length];
+        int[] regionIds = new int[tiles.length];
+        for (int i = 0; i < tiles.length; i++) {
+            fixedMask[i] = fixed[i] ? 1 : 0;
+            regionIds[i] = regions[i];
+        }
+
+        JSONObject levelData = new JSONObject();
+        levelData.put("id", id);
+        levelData.put("difficulty", difficulty);
+        levelData.put("size", size);
+        levelData.put("tiles", Board.toGrid(tiles, size));
+        levelData.put("fixed", Board.toGrid(fixedMask, size));
+        levelData.put("regions", Board.toGrid(regionIds, size));
+        levelData.put("completed", completed);
+        return levelData;
+    }
+
+    /**
+     * Builds the starting board of the level, with only the clues placed.
+     *
+     * @return A new board
+     */
+    Board toBoard() {
+        Board board = new Board(size, regions.clone());
+        for (int i = 0; i < tiles.length; i++) {
+            if (fixed[i] && tiles[i] != 0) {
+                board.place(i, tiles[i]);
+                board.fixed[i] = true;
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,333 @@
+package org.game;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+import static org.game.FileManager.getUserDataPath;
+
+/**
+ * Small previews of levels showing their regions and clues.
+ * Previews are rendered on a small pool of background threads and kept in memory, with
+ * the least recently used ones dropped, and as PNG files under ~/.amoebae/thumbnails.
+ * Both caches are keyed by a hash of the level's content and the active theme, so a
+ * changed level or theme gets a new preview. Asking for a preview never waits: it
+ * returns null and the caller is told when the preview is ready.
+ * Failures are reported once rather than for every preview. When a preview cannot be
+ * written to disk, the cache keeps previews in memory only from then on.
+ */
+public class LevelThumbnails {
+    /** Width and height of a preview in pixels. */
+    static final int THUMBNAIL_SIZE = 90;
+
+    /** Number of previews kept in memory. */
+    static final int MEMORY_CACHE_SIZE = 512;
+
+    /** Number of requests that may wait for a render thread; older ones are dropped. */
+    static final int QUEUE_CAPACITY = 64;
+
+    // Part of every key, so changing how previews look invalidates the disk cache
+    private static final int RENDER_VERSION = 1;
+
+    private static LevelThumbnails instance;
+
+    private final Path cacheDirectory;
+    private final ThreadPoolExecutor renderers;
+    private final AtomicBoolean diskFailed = new AtomicBoolean();
+    private final AtomicBoolean renderFailed = new AtomicBoolean();
+    private final Set<String> pending = new HashSet<>();
+    private final Map<String, BufferedImage> images =
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+                    return size() > MEMORY_CACHE_SIZE;
+                }
+            };
+
+    /**
+     * Task that produces one preview.
+     */
+    private class RenderTask implements Runnable {
+        final String key;
+        final LevelRecord level;
+        final Color[] palette;
+        final Runnable onReady;
+
+        /**
+         * Constructs a task.
+         *
+         * @param key The content hash of the preview
+         * @param level The level to render
+         * @param palette The theme colours the key was computed from
+         * @param onReady Run on the event dispatch thread once the preview is cached
+         */
+        RenderTask(String key, LevelRecord level, Color[] palette, Runnable onReady) {
+            this.key = key;
+            this.level = level;
+            this.palette = palette;
+            this.onReady = onReady;
+        }
+
+        @Override
+        public void run() {
+            BufferedImage image = null;
+            try {
+                image = readFromDisk(key);
+                if (image == null) {
+                    image = render(level, palette);
+                    writeToDisk(key, image);
+                }
+            } catch (RuntimeException ex) {
+                // Every other level likely fails the same way; one trace is enough
+                if (renderFailed.compareAndSet(false, true)) {
+                    ex.printStackTrace();
+                }
+            } finally {
+                synchronized (LevelThumbnails.this) {
+                    if (image != null) {
+                        images.put(key, image);
+                    }
+                    pending.remove(key);
+                }
+            }
+            if (image != null) {
+                SwingUtilities.invokeLater(onReady);
+            }
+        }
+    }
+
+    /**
+     * Constructs a preview cache.
+     *
+     * @param cacheDirectory The directory for cached previews, or null to keep them in memory only
+     */
+    LevelThumbnails(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+        // When the queue is full the oldest request is dropped; its row has most likely
+        // scrolled out of view and asks again if it comes back
+        RejectedExecutionHandler dropOldest = (task, executor) -> {
+            if (executor.isShutdown()) {
+                return;
+            }
+            Runnable oldest = executor.getQueue().poll();
+            if (oldest instanceof RenderTask) {
+                synchronized (this) {
+                    pending.remove(((RenderTask) oldest).key);
+                }
+            }
+            executor.execute(task);
+        };
+        this.renderers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-renderer");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }, dropOldest);
+    }
+
+    /**
+     * Returns the shared preview cache, stored under the user data directory unless the
+     * game runs in fallback mode.
+     *
+     * @return The shared preview cache
+     */
+    static synchronized LevelThumbnails get() {
+        if (instance == null) {
+            instance = new LevelThumbnails(FileManager.isFallbackMode() ? null : getUserDataPath("thumbnails"));
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the preview of a level if it is in memory. Otherwise a render is queued,
+     * unless one is already waiting, and null is returned.
+     * The theme colours are taken once here, so the preview is drawn in the colours
+     * its key names even if the theme changes before a render thread gets to it.
+     *
+     * @param level The level
+     * @param onReady Run on the event dispatch thread when a queued preview is ready
+     * @return The preview, or null if it is not ready yet
+     */
+    BufferedImage thumbnail(LevelRecord level, Runnable onReady) {
+        Color[] palette = ColourTheme.palette();
+        String key = key(level, palette);
+        synchronized (this) {
+            BufferedImage image = images.get(key);
+            if (image != null || !pending.add(key)) {
+                return image;
+            }
+        }
+        renderers.execute(new RenderTask(key, level, palette, onReady));
+        return null;
+    }
+
+    /**
+     * Computes the content hash of a level's preview from its size, regions, clues and
+     * the theme colours.
+     *
+     * @param level The level
+     * @param palette The theme colours, indexed by region id
+     * @return The hash as a hexadecimal string
+     */
+    static String key(LevelRecord level, Color[] palette) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+        int cellCount = level.size * level.size;
+        ByteBuffer content = ByteBuffer.allocate(12 + 2 * cellCount + 4 * level.size);
+        content.putInt(RENDER_VERSION).putInt(THUMBNAIL_SIZE).putInt(level.size);
+        for (int i = 0; i < cellCount; i++) {
+            content.put((byte) level.region(i));
+            content.put((byte) (level.isFixed(i) ? level.tile(i) : 0));
+        }
+        for (int regionId = 0; regionId < level.size; regionId++) {
+            content.putInt(palette[regionId].getRGB());
+        }
+        digest.update(content.array());
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Draws a preview: region colours, region boundaries and the clue digits, or a dot
+     * per clue when the cells are too small for digits.
+     *
+     * @param level The level
+     * @param palette The theme colours, indexed by region id
+     * @return The preview
+     */
+    static BufferedImage render(LevelRecord level, Color[] palette) {
+        int size = level.size;
+        BufferedImage image = new BufferedImage(THUMBNAIL_SIZE, THUMBNAIL_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        for (int i = 0; i < size * size; i++) {
+            g2.setColor(palette[level.region(i)]);
+            g2.fillRect(edge(i % size, size), edge(i / size, size),
+                    edge(i % size + 1, size) - edge(i % size, size), edge(i / size + 1, size) - edge(i / size, size));
+        }
+
+        // Region boundaries, where a cell's right or lower neighbour is in another region
+        g2.setColor(Color.BLACK);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int region = level.region(row * size + col);
+                if (col + 1 < size && level.region(row * size + col + 1) != region) {
+                    g2.drawLine(edge(col + 1, size), edge(row, size), edge(col + 1, size), edge(row + 1, size) - 1);
+                }
+                if (row + 1 < size && level.region((row + 1) * size + col) != region) {
+                    g2.drawLine(edge(col, size), edge(row + 1, size), edge(col + 1, size) - 1, edge(row + 1, size));
+                }
+            }
+        }
+        g2.drawRect(0, 0, THUMBNAIL_SIZE - 1, THUMBNAIL_SIZE - 1);
+
+        int cellSize = THUMBNAIL_SIZE / size;
+        g2.setFont(new Font("Calibri", Font.BOLD, Math.max(1, cellSize * 3 / 4)));
+        FontMetrics metrics = g2.getFontMetrics();
+        for (int i = 0; i < size * size; i++) {
+            if (!level.isFixed(i) || level.tile(i) == 0) {
+                continue;
+            }
+            int left = edge(i % size, size);
+            int top = edge(i / size, size);
+            if (cellSize >= 10) {
+                String label = BoardView.DIGIT_LABELS[level.tile(i)];
+                g2.drawString(label, left + (cellSize - metrics.stringWidth(label)) / 2,
+                        top + (cellSize - metrics.getHeight()) / 2 + metrics.getAscent());
+            } else {
+                int dot = Math.max(1, cellSize / 2);
+                g2.fillRect(left + (cellSize - dot) / 2, top + (cellSize - dot) / 2, dot, dot);
+            }
+        }
+        g2.dispose();
+        return image;
+    }
+
+    /**
+     * Returns the pixel position of a cell edge, spreading the rounding over the cells so
+     * the board fills the preview.
+     *
+     * @param cell The edge index, from 0 to size
+     * @param size The board size
+     * @return The pixel position
+     */
+    private static int edge(int cell, int size) {
+        return cell * THUMBNAIL_SIZE / size;
+    }
+
+    /**
+     * Reads a cached preview from disk. A preview that cannot be read is rendered again
+     * and overwritten.
+     *
+     * @param key The content hash
+     * @return The preview, or null if it is not cached or cannot be read
+     */
+    private BufferedImage readFromDisk(String key) {
+        if (cacheDirectory == null || diskFailed.get()) {
+            return null;
+        }
+        Path file = cacheDirectory.resolve(key + ".png");
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return ImageIO.read(file.toFile());
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores a preview on disk. After the first preview that cannot be written, the
+     * disk cache is turned off for the rest of the session, as the others would fail
+     * the same way; previews are then rendered again the next time the game runs.
+     *
+     * @param key The content hash
+     * @param image The preview
+     */
+    private void writeToDisk(String key, BufferedImage image) {
+        if (cacheDirectory == null || diskFailed.get()) {
+            return;
+        }
+        try {
+            Files.createDirectories(cacheDirectory);
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", png);
+            AtomicFileWriter.write(cacheDirectory.resolve(key + ".png"), ByteBuffer.wrap(png.toByteArray()));
+        } catch (IOException ex) {
+            if (diskFailed.compareAndSet(false, true)) {
+                System.err.println("Cannot cache level previews in " + cacheDirectory
+                        + ", keeping them in memory only: " + ex);
+            }
+        }
+    }
+}
@@ -20,6 +20,12 @@ public class Main {
      * @throws IOException If there's an error initializing the game
      */
     public static void main(String[] args) throws IOException {
+        // Prepare the user data directory before anything reads from it
+        FileManager.bootstrap();
+
+        // Decode the background while the music and the window are set up
+        ImageAssets.warmUp(ImageAssets.BACKGROUND, GameFrame.FRAME_SIZE, GameFrame.FRAME_SIZE);
+
         // Ensure disabled button text remains black
         UIManager.put("Button.disabledText", new ColorUIResource(Color.BLACK));
 
@@ -0,0 +1,128 @@
+package org.game;
+
+import java.util.Arrays;
+
+/**
+ * Undo/redo history of the moves made on a board.
+ * Each move is packed into a single int holding the cell index, the digit the cell held
+ * before and the digit it holds after, so recording, undoing and redoing a move never
+ * allocate. Moves before the cursor can be undone and moves after it can be redone;
+ * recording a new move discards the redo tail.
+ */
+public class MoveJournal {
+    // Layout of a packed move: cell index above two 5-bit digits
+    private static final int DIGIT_BITS = 5;
+    private static final int DIGIT_MASK = (1 << DIGIT_BITS) - 1;
+
+    private int[] moves;
+    private int length;
+    private int cursor;
+
+    /**
+     * Constructs an empty journal.
+     */
+    MoveJournal() {
+        moves = new int[64];
+    }
+
+    /**
+     * Packs a move into a single int.
+     *
+     * @param cell The cell index
+     * @param oldDigit The digit before the move, 0 for an empty cell
+     * @param newDigit The digit after the move, 0 for an empty cell
+     * @return The packed move
+     */
+    static int pack(int cell, int oldDigit, int newDigit) {
+        return cell << (2 * DIGIT_BITS) | oldDigit << DIGIT_BITS | newDigit;
+    }
+
+    /**
+     * Extracts the cell index from a packed move.
+     *
+     * @param move The packed move
+     * @return The cell index
+     */
+    static int cell(int move) {
+        return move >>> (2 * DIGIT_BITS);
+    }
+
+    /**
+     * Extracts the digit a cell held before a packed move.
+     *
+     * @param move The packed move
+     * @return The old digit, 0 for an empty cell
+     */
+    static int oldDigit(int move) {
+        return move >>> DIGIT_BITS & DIGIT_MASK;
+    }
+
+    /**
+     * Extracts the digit a cell holds after a packed move.
+     *
+     * @param move The packed move
+     * @return The new digit, 0 for an empty cell
+     */
+    static int newDigit(int move) {
+        return move & DIGIT_MASK;
+    }
+
+    /**
+     * Records a move made by the player and discards any moves that could be redone.
+     *
+     * @param cell The cell index
+     * @param oldDigit The digit before the move, 0 for an empty cell
+     * @param newDigit The digit after the move, 0 for an empty cell
+     */
+    void record(int cell, int oldDigit, int newDigit) {
+        if (cursor == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        moves[cursor++] = pack(cell, oldDigit, newDigit);
+        length = cursor;
+    }
+
+    /**
+     * Checks whether there is a move to undo.
+     *
+     * @return true if undo would return a move
+     */
+    boolean canUndo() {
+        return cursor > 0;
+    }
+
+    /**
+     * Checks whether there is an undone move to redo.
+     *
+     * @return true if redo would return a move
+     */
+    boolean canRedo() {
+        return cursor < length;
+    }
+
+    /**
+     * Steps back over the last move. The caller restores the move's old digit.
+     *
+     * @return The packed move that was undone
+     * @throws IllegalStateException If there is no move to undo
+     */
+    int undo() {
+        if (cursor == 0) {
+            throw new IllegalStateException("Nothing to undo");
+        }
+        return moves[--cursor];
+    }
+
+    /**
+     * Steps forward over the next undone move. The caller applies the move's new digit.
+     *
+     * @return The packed move that was redone
+     * @throws IllegalStateException If there is no move to redo
+     */
+    int redo() {
+        if (cursor == length) {
+            throw new IllegalStateException("Nothing to redo");
+        }
+        return moves[cursor++];
+    }
+}
@@ -5,22 +5,103 @@ import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Clip;
 import javax.sound.sampled.FloatControl;
 import java.io.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Manages background music playback for the game.
  * Handles loading, playing, looping, and volume control of audio.
+ * A dedicated audio thread owns the clip and carries out play, stop and volume commands
+ * from a queue, so callers on the UI thread or at startup never wait for audio.
  */
 class MusicPlayer {
 
+    /**
+     * Commands carried out by the audio thread.
+     */
+    enum Command {
+        PLAY, STOP, VOLUME
+    }
+
+    private final BlockingQueue<Command> commands = new LinkedBlockingQueue<>();
+    private final AtomicBoolean volumeQueued = new AtomicBoolean();
+    private volatile float requestedVolume = -1;
+
+    // Only touched by the audio thread
     private Clip audioClip;
 
     /**
-     * Loads and plays the background music track.
-     * The music will loop continuously after the initial playthrough.
-     * Starts with volume set to minimum (-80dB) by default.
+     * Constructs a music player and starts its audio thread.
+     */
+    MusicPlayer() {
+        Thread audioThread = new Thread(this::processCommands, "audio");
+        audioThread.setDaemon(true);
+        audioThread.start();
+    }
+
+    /**
+     * Loads and plays the background music track, looping it continuously.
+     * Returns immediately; the track is decoded on the audio thread.
+     * Starts with volume set to minimum (-80dB) until a volume is set.
      */
     void playMusic() {
+        commands.add(Command.PLAY);
+    }
+
+    /**
+     * Stops the background music. Returns immediately.
+     */
+    void stopMusic() {
+        commands.add(Command.STOP);
+    }
+
+    /**
+     * Adjusts the volume of the music. Returns immediately; when the volume changes
+     * faster than the audio thread applies it, only the latest value is applied.
+     *
+     * @param volumePercentage The desired volume level (0-100, where 0 is mute and 100 is maximum)
+     */
+    void changeVolume(float volumePercentage) {
+        // Clamp volume to valid range
+        requestedVolume = Math.max(0, Math.min(volumePercentage, 100));
+        if (volumeQueued.compareAndSet(false, true)) {
+            commands.add(Command.VOLUME);
+        }
+    }
+
+    /**
+     * Runs on the audio thread, carrying out commands until the application exits.
+     */
+    private void processCommands() {
         try {
+            while (true) {
+                Command command = commands.take();
+                try {
+                    switch (command) {
+                        case PLAY -> play();
+                        case STOP -> stop();
+                        case VOLUME -> {
+                            volumeQueued.set(false);
+                            applyVolume();
+                        }
+                    }
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+        } catch (InterruptedException ex) {
+            // The audio thread stops with the application
+        }
+    }
+
+    /**
+     * Opens the track on first use and starts looping it.
+     *
+     * @throws Exception If the track cannot be decoded or no audio line is available
+     */
+    private void play() throws Exception {
+        if (audioClip == null) {
             // Load audio file from resources
             InputStream audioInputStream = GameFrame.class.getClassLoader()
                     .getResourceAsStream("PlaceholderSong.wav");
@@ -31,48 +112,44 @@ class MusicPlayer {
             }
 
             // Create audio input stream and clip
-            AudioInputStream audioStream = AudioSystem.getAudioInputStream(audioInputStream);
-            audioClip = AudioSystem.getClip();
-            audioClip.open(audioStream);
-
-            // Set initial volume to minimum
-            FloatControl volumeControl =
-                    (FloatControl) audioClip.getControl(FloatControl.Type.MASTER_GAIN);
-            volumeControl.setValue(-80.0f);
-
-            // Start playback
-            audioClip.start();
-            System.out.println(audioClip.getMicrosecondLength());
-            Thread.sleep(audioClip.getMicrosecondLength() / 1000);
-
-            // Add listener to loop music continuously
-            audioClip.addLineListener(e -> {
-                try {
-                    audioClip.loop(Clip.LOOP_CONTINUOUSLY);
-                    audioClip.start();
-                    Thread.sleep(audioClip.getMicrosecondLength() / 1000);
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
-            });
+            try (AudioInputStream audioStream = AudioSystem.getAudioInputStream(new BufferedInputStream(audioInputStream))) {
+                Clip clip = AudioSystem.getClip();
+                clip.open(audioStream);
+                audioClip = clip;
+            }
 
-        } catch (Exception ex) {
-            ex.printStackTrace();
+            // Set initial volume to minimum, or to a volume requested while loading
+            volumeControl().setValue(-80.0f);
+            applyVolume();
+        }
+
+        // Start playback; the clip loops by itself without a thread waiting on it
+        if (!audioClip.isRunning()) {
+            audioClip.loop(Clip.LOOP_CONTINUOUSLY);
         }
     }
 
     /**
-     * Adjusts the volume of the currently playing music.
-     * Converts percentage-based volume to decibel scale for audio control.
-     *
-     * @param volumePercentage The desired volume level (0-100, where 0 is mute and 100 is maximum)
+     * Stops the track, keeping it loaded so it can resume.
      */
-    void changeVolume(float volumePercentage) {
-        FloatControl volumeControl =
-                (FloatControl) audioClip.getControl(FloatControl.Type.MASTER_GAIN);
+    private void stop() {
+        if (audioClip != null) {
+            audioClip.stop();
+        }
+    }
 
-        // Clamp volume to valid range
-        volumePercentage = Math.max(0, Math.min(volumePercentage, 100));
+    /**
+     * Applies the latest requested volume to the clip.
+     * Converts percentage-based volume to decibel scale for audio control.
+     * Without a clip or a requested volume there is nothing to do; the clip picks the
+     * volume up when it opens.
+     */
+    private void applyVolume() {
+        float volumePercentage = requestedVolume;
+        if (audioClip == null || volumePercentage < 0) {
+            return;
+        }
+        FloatControl volumeControl = volumeControl();
 
         if (volumePercentage == 0) {
             // Mute the audio
@@ -86,4 +163,13 @@ class MusicPlayer {
             volumeControl.setValue(volumeInDecibels);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the gain control of the clip.
+     *
+     * @return The master gain control
+     */
+    private FloatControl volumeControl() {
+        return (FloatControl) audioClip.getControl(FloatControl.Type.MASTER_GAIN);
+    }
+}
@@ -0,0 +1,361 @@
+package org.game;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.json.JSONArray;
+
+/**
+ * Backtracking solver that splits the search tree across a ForkJoinPool.
+ * Each branch works on its own copy of the board. Naked and hidden singles are placed
+ * without branching, and otherwise the cell with the fewest candidates is split.
+ * Branches are forked only while the pool has few queued tasks and the subtree is
+ * large, so idle workers steal the big subtrees and small subtrees run sequentially.
+ * All branches stop as soon as the requested number of solutions has been found.
+ */
+public class ParallelSolver {
+    /** Subtrees with at most this many empty cells are always searched sequentially. */
+    private static final int SEQUENTIAL_CUTOFF = 24;
+
+    /** Branches are only forked while a worker has at most this many surplus tasks queued. */
+    private static final int MAX_SURPLUS_TASKS = 3;
+
+    // Results of nextMove that are not a cell to fill
+    static final int SOLVED = -1;
+    static final int DEAD_END = -2;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a parallel solver running on the given pool.
+     *
+     * @param pool The pool that executes the search tasks
+     */
+    ParallelSolver(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Constructs a parallel solver running on the common pool.
+     */
+    ParallelSolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Enumerates solutions of a board in parallel.
+     * The board itself is not modified.
+     *
+     * @param board The board holding the clues and the region layout
+     * @param maxSolutions The search is cancelled after this many solutions have been found
+     * @param onSolution Receives each solution as a filled grid, may be called from any
+     *                   worker thread and may be null
+     * @return The number of solutions found, at most maxSolutions
+     */
+    int solve(Board board, int maxSolutions, Consumer<int[]> onSolution) {
+        if (board.conflictCount > 0 || maxSolutions <= 0) {
+            return 0;
+        }
+        SearchState state = new SearchState(maxSolutions, onSolution);
+        pool.invoke(new SearchTask(board.copy(), state));
+        return state.solutionCount();
+    }
+
+    /**
+     * Counts the solutions of a board in parallel, up to a limit.
+     *
+     * @param board The board holding the clues and the region layout
+     * @param maxSolutions The search is cancelled after this many solutions have been found
+     * @return The number of solutions found, at most maxSolutions
+     */
+    int countSolutions(Board board, int maxSolutions) {
+        return solve(board, maxSolutions, null);
+    }
+
+    /**
+     * Enumerates solutions of a board on the calling thread, using the same search order
+     * as the parallel path. Used as the baseline when measuring speed-up.
+     *
+     * @param board The board holding the clues and the region layout
+     * @param maxSolutions The search stops after this many solutions have been found
+     * @param onSolution Receives each solution as a filled grid, may be null
+     * @return The number of solutions found, at most maxSolutions
+     */
+    static int solveSequential(Board board, int maxSolutions, Consumer<int[]> onSolution) {
+        if (board.conflictCount > 0 || maxSolutions <= 0) {
+            return 0;
+        }
+        SearchState state = new SearchState(maxSolutions, onSolution);
+        searchSequential(board.copy(), state);
+        return state.solutionCount();
+    }
+
+    /**
+     * Depth-first search on a single thread, using the same move order as the tasks.
+     *
+     * @param board The board to search, restored to its original state on return
+     * @param state The shared search state
+     */
+    private static void searchSequential(Board board, SearchState state) {
+        if (state.isDone()) {
+            return;
+        }
+        int move = nextMove(board);
+        if (move == DEAD_END) {
+            return;
+        }
+        if (move == SOLVED) {
+            state.record(board);
+            return;
+        }
+
+        int cell = move >>> 5;
+        int forcedDigit = move & 31;
+        int candidates = forcedDigit != 0 ? 1 << (forcedDigit - 1) : board.candidates(cell);
+        while (candidates != 0 && !state.isDone()) {
+            int digit = Integer.numberOfTrailingZeros(candidates) + 1;
+            candidates &= candidates - 1;
+            board.place(cell, digit);
+            searchSequential(board, state);
+            board.clear(cell);
+        }
+    }
+
+    /**
+     * Decides the next step of the search.
+     * A cell with a single candidate, or a digit that fits only one cell of a unit,
+     * is returned as a forced move. Otherwise the empty cell with the fewest candidates
+     * is returned for branching.
+     *
+     * @param board The board to inspect
+     * @return SOLVED if the board is full, DEAD_END if some cell or digit has no place left,
+     *         otherwise the cell index shifted left by 5, combined with the forced digit or 0
+     */
+    static int nextMove(Board board) {
+        int bestCell = -1;
+        int bestCount = Integer.MAX_VALUE;
+        for (int i = 0; i < board.cellCount; i++) {
+            if (board.cells[i] != 0) {
+                continue;
+            }
+            int candidates = board.candidates(i);
+            int count = Integer.bitCount(candidates);
+            if (count == 0) {
+                return DEAD_END;
+            }
+            if (count == 1) {
+                return i << 5 | (Integer.numberOfTrailingZeros(candidates) + 1);
+            }
+            if (count < bestCount) {
+                bestCell = i;
+                bestCount = count;
+            }
+        }
+        if (bestCell < 0) {
+            return SOLVED;
+        }
+
+        // Look for a digit that has exactly one place left in some unit
+        for (int unit = 0; unit < board.unitCells.length; unit++) {
+            int missing = board.fullMask & ~board.unitMasks[unit];
+            if (missing == 0) {
+                continue;
+            }
+            int once = 0;
+            int twice = 0;
+            for (int cell : board.unitCells[unit]) {
+                if (board.cells[cell] == 0) {
+                    int candidates = board.candidates(cell);
+                    twice |= once & candidates;
+                    once |= candidates;
+                }
+            }
+            if ((missing & ~once) != 0) {
+                return DEAD_END;
+            }
+            int singles = missing & once & ~twice;
+            if (singles != 0) {
+                int bit = singles & -singles;
+                for (int cell : board.unitCells[unit]) {
+                    if (board.cells[cell] == 0 && (board.candidates(cell) & bit) != 0) {
+                        return cell << 5 | (Integer.numberOfTrailingZeros(bit) + 1);
+                    }
+                }
+            }
+        }
+        return bestCell << 5;
+    }
+
+    /**
+     * Search state shared by all tasks of one solve call.
+     */
+    private static final class SearchState {
+        final int limit;
+        final Consumer<int[]> onSolution;
+        final AtomicInteger found = new AtomicInteger();
+
+        SearchState(int limit, Consumer<int[]> onSolution) {
+            this.limit = limit;
+            this.onSolution = onSolution;
+        }
+
+        /**
+         * Checks whether enough solutions have been found for every task to stop.
+         *
+         * @return true once the solution limit has been reached
+         */
+        boolean isDone() {
+            return found.get() >= limit;
+        }
+
+        /**
+         * Records a full board as a solution, unless the limit was already reached
+         * by another task.
+         *
+         * @param board The solved board
+         */
+        void record(Board board) {
+            if (found.incrementAndGet() <= limit && onSolution != null) {
+                onSolution.accept(board.cells.clone());
+            }
+        }
+
+        /**
+         * Returns the number of solutions found, capped at the limit.
+         *
+         * @return The solution count
+         */
+        int solutionCount() {
+            return Math.min(found.get(), limit);
+        }
+    }
+
+    /**
+     * Fork-join task searching the subtree below one board position.
+     */
+    private static final class SearchTask extends RecursiveAction {
+        private final Board board;
+        private final SearchState state;
+
+        SearchTask(Board board, SearchState state) {
+            this.board = board;
+            this.state = state;
+        }
+
+        /**
+         * Places forced digits, then either forks one subtask per candidate of the most
+         * constrained cell or finishes the subtree sequentially.
+         */
+        @Override
+        protected void compute() {
+            while (!state.isDone()) {
+                int move = nextMove(board);
+                if (move == DEAD_END) {
+                    return;
+                }
+                if (move == SOLVED) {
+                    state.record(board);
+                    return;
+                }
+
+                int cell = move >>> 5;
+                int forcedDigit = move & 31;
+                if (forcedDigit != 0) {
+                    // Only one digit fits, so place it without branching
+                    board.place(cell, forcedDigit);
+                    continue;
+                }
+
+                int emptyCells = board.cellCount - board.filledCount;
+                if (emptyCells <= SEQUENTIAL_CUTOFF || getSurplusQueuedTaskCount() > MAX_SURPLUS_TASKS) {
+                    searchSequential(board, state);
+                    return;
+                }
+
+                List<SearchTask> subtasks = new ArrayList<>();
+                int candidates = board.candidates(cell);
+                while (candidates != 0) {
+                    int digit = Integer.numberOfTrailingZeros(candidates) + 1;
+                    candidates &= candidates - 1;
+                    Board branch = board.copy();
+                    branch.place(cell, digit);
+                    subtasks.add(new SearchTask(branch, state));
+                }
+                invokeAll(subtasks);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Compares the sequential and parallel search on every level of a catalog and prints
+     * the timings and speed-up.
+     * Usage: ParallelSolver &lt;levels.json&gt; [maxSolutions] [threads]
+     *
+     * @param args The catalog path, optionally the solution limit and the pool size
+     * @throws IOException If the catalog cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ParallelSolver <levels.json> [maxSolutions] [threads]");
+            return;
+        }
+        Path levelsPath = Paths.get(args[0]);
+        int maxSolutions = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int threads = args.length > 2
+                ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        JSONArray levelsArray = new JSONArray(Files.readString(levelsPath, StandardCharsets.UTF_8));
+        List<Board> boards = new ArrayList<>();
+        for (int i = 0; i < levelsArray.length(); i++) {
+            boards.add(Board.fromJson(levelsArray.getJSONObject(i)));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        ParallelSolver solver = new ParallelSolver(pool);
+
+        // Warm up both paths so the timings are not dominated by the JIT
+        for (Board board : boards) {
+            solveSequential(board, maxSolutions, null);
+            solver.countSolutions(board, maxSolutions);
+        }
+
+        long totalSequential = 0;
+        long totalParallel = 0;
+        System.out.printf("%-6s %-6s %-10s %-14s %-14s %s%n",
+                "level", "size", "solutions", "sequential ms", "parallel ms", "speed-up");
+        for (int i = 0; i < boards.size(); i++) {
+            Board board = boards.get(i);
+
+            long start = System.nanoTime();
+            int sequentialCount = solveSequential(board, maxSolutions, null);
+            long sequentialTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int parallelCount = solver.countSolutions(board, maxSolutions);
+            long parallelTime = System.nanoTime() - start;
+
+            totalSequential += sequentialTime;
+            totalParallel += parallelTime;
+            System.out.printf("%-6d %-6s %-10s %-14.3f %-14.3f %.2fx%n",
+                    levelsArray.getJSONObject(i).getInt("id"),
+                    board.size + "x" + board.size,
+                    sequentialCount == parallelCount
+                            ? String.valueOf(parallelCount) : sequentialCount + "/" + parallelCount,
+                    sequentialTime / 1e6, parallelTime / 1e6,
+                    (double) sequentialTime / Math.max(1, parallelTime));
+        }
+        System.out.printf("total: sequential %.3f ms, parallel %.3f ms on %d threads, speed-up %.2fx%n",
+                totalSequential / 1e6, totalParallel / 1e6, threads,
+                (double) totalSequential / Math.max(1, totalParallel));
+        pool.shutdown();
+    }
+}
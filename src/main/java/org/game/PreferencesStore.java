@@ -0,0 +1,141 @@
+package org.game;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import static org.game.FileManager.getUserDataPath;
+
+/**
+ * In-memory copy of the user preferences in Preferences.json.
+ * The file is read once and all reads are answered from memory. Changes mark the store
+ * dirty and schedule a write on a background thread; further changes within the quiet
+ * period push the write back, so dragging the volume slider ends in a single write.
+ * Pending changes are also written when the application shuts down.
+ */
+public class PreferencesStore {
+    /** Quiet period after the last change before the preferences are written. */
+    static final long FLUSH_DELAY_MILLIS = 500;
+
+    private static PreferencesStore instance;
+
+    private final Path preferencesPath;
+    private final JSONObject values;
+    private final ScheduledExecutorService flusher;
+    private final Object writeLock = new Object();
+    private ScheduledFuture<?> pendingFlush;
+    private boolean dirty;
+
+    /**
+     * Constructs a store backed by a preferences file and loads its contents.
+     * A missing or unreadable file leaves the store empty.
+     *
+     * @param preferencesPath The preferences file
+     */
+    PreferencesStore(Path preferencesPath) {
+        this.preferencesPath = preferencesPath;
+        this.values = load(preferencesPath);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "preferences-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the shared store for the user's Preferences.json, loading it on first use.
+     * The first call also registers a shutdown hook that writes pending changes.
+     *
+     * @return The shared preferences store
+     */
+    static synchronized PreferencesStore get() {
+        if (instance == null) {
+            PreferencesStore store = new PreferencesStore(getUserDataPath("Preferences.json"));
+            Runtime.getRuntime().addShutdownHook(new Thread(store::flush, "preferences-shutdown"));
+            instance = store;
+        }
+        return instance;
+    }
+
+    /**
+     * Reads the preferences object from a file.
+     *
+     * @param preferencesPath The preferences file
+     * @return The first object of the stored array, or an empty object if it cannot be read
+     */
+    private static JSONObject load(Path preferencesPath) {
+        try {
+            String preferencesContent = Files.readString(preferencesPath, StandardCharsets.UTF_8);
+            return new JSONArray(preferencesContent).getJSONObject(0);
+        } catch (IOException | RuntimeException ex) {
+            ex.printStackTrace();
+            return new JSONObject();
+        }
+    }
+
+    /**
+     * Returns an integer preference.
+     *
+     * @param key The preference name, for example "volume" or "theme"
+     * @return The stored value, or 0 if it is not set
+     */
+    synchronized int getInt(String key) {
+        return values.optInt(key);
+    }
+
+    /**
+     * Changes an integer preference and schedules a write after the quiet period.
+     * Setting a preference to its current value does nothing.
+     *
+     * @param key The preference name
+     * @param value The new value
+     */
+    synchronized void putInt(String key, int value) {
+        if (values.has(key) && values.optInt(key) == value) {
+            return;
+        }
+        values.put(key, value);
+        dirty = true;
+
+        // Restart the quiet period so a burst of changes is written once
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+        }
+        pendingFlush = flusher.schedule(this::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the preferences to disk if they changed since the last write.
+     * Called from the background thread, the shutdown hook, or directly by callers
+     * that need the file to be up to date.
+     */
+    void flush() {
+        synchronized (writeLock) {
+            String preferencesContent;
+            synchronized (this) {
+                if (!dirty) {
+                    return;
+                }
+                dirty = false;
+                pendingFlush = null;
+                preferencesContent = new JSONArray().put(values).toString();
+            }
+
+            try {
+                AtomicFileWriter.write(preferencesPath, preferencesContent);
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                synchronized (this) {
+                    dirty = true;
+                }
+            }
+        }
+    }
+}
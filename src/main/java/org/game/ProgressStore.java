@@ -0,0 +1,311 @@
+package org.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import static org.game.FileManager.getUserDataPath;
+
+/**
+ * Player progress kept in an append-only log next to the level catalog.
+ * Every change appends one line holding the full progress record of a level, and on
+ * load the last line per level wins. Saving therefore costs one small append however
+ * large the catalog is, and Levels.json itself is never written. Once the log holds
+ * mostly superseded lines it is compacted in the background into one line per level.
+ * Appends and compaction run in order on a single background thread.
+ */
+public class ProgressStore {
+    /** Superseded lines tolerated, on top of one per level, before the log is compacted. */
+    static final int COMPACTION_SLACK = 64;
+
+    /**
+     * Progress of one level. Instances are immutable.
+     */
+    static final class Progress {
+        final int levelId;
+        final boolean completed;
+        final long bestTimeMillis;
+        final int[] lastBoard;
+
+        /**
+         * Constructs a progress record.
+         *
+         * @param levelId The level id
+         * @param completed Whether the level has been solved
+         * @param bestTimeMillis The fastest solve in milliseconds, or 0 if never solved
+         * @param lastBoard The cells as last left by the player in row-major order, or null
+         */
+        Progress(int levelId, boolean completed, long bestTimeMillis, int[] lastBoard) {
+            this.levelId = levelId;
+            this.completed = completed;
+            this.bestTimeMillis = bestTimeMillis;
+            this.lastBoard = lastBoard;
+        }
+
+        /**
+         * Parses a record from one log line.
+         *
+         * @param record The JSON object stored on the line
+         * @return The progress record
+         */
+        static Progress fromJson(JSONObject record) {
+            int[] lastBoard = null;
+            if (record.has("board")) {
+                JSONArray board = record.getJSONArray("board");
+                lastBoard = new int[board.length()];
+                for (int i = 0; i < lastBoard.length; i++) {
+                    lastBoard[i] = board.getInt(i);
+                }
+            }
+            return new Progress(record.getInt("id"), record.getBoolean("completed"),
+                    record.getLong("bestTime"), lastBoard);
+        }
+
+        /**
+         * Converts the record to a JSON object for one log line.
+         *
+         * @return The JSON object
+         */
+        JSONObject toJson() {
+            JSONObject record = new JSONObject();
+            record.put("id", levelId);
+            record.put("completed", completed);
+            record.put("bestTime", bestTimeMillis);
+            if (lastBoard != null) {
+                JSONArray board = new JSONArray();
+                for (int digit : lastBoard) {
+                    board.put(digit);
+                }
+                record.put("board", board);
+            }
+            return record;
+        }
+    }
+
+    private static ProgressStore instance;
+
+    private final Path logPath;
+    private final Map<Integer, Progress> progressById = new HashMap<>();
+    private final ExecutorService writer;
+    private FileChannel logChannel;
+    private int logLines;
+
+    /**
+     * Constructs a store backed by a progress log and replays the log into memory.
+     * Lines that cannot be parsed, such as one torn by a crash, are skipped and the log
+     * is compacted before anything is appended to it.
+     *
+     * @param logPath The log file, created on the first append if missing
+     */
+    ProgressStore(Path logPath) {
+        this.logPath = logPath;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "progress-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        boolean damaged = false;
+        try {
+            if (Files.exists(logPath)) {
+                List<String> lines = Files.readAllLines(logPath, StandardCharsets.UTF_8);
+                for (String line : lines) {
+                    try {
+                        Progress progress = Progress.fromJson(new JSONObject(line));
+                        progressById.put(progress.levelId, progress);
+                    } catch (RuntimeException ex) {
+                        System.err.println("Skipping unreadable progress record: " + line);
+                        damaged = true;
+                    }
+                }
+                logLines = lines.size();
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+        if (damaged || needsCompaction()) {
+            writer.execute(this::compact);
+        }
+    }
+
+    /**
+     * Returns the shared store for Progress.log in the user data directory, loading it
+     * on first use. The first call also registers a shutdown hook that waits for pending
+     * appends to reach the disk.
+     *
+     * @return The shared progress store
+     */
+    static synchronized ProgressStore get() {
+        if (instance == null) {
+            ProgressStore store = new ProgressStore(getUserDataPath("Progress.log"));
+            Runtime.getRuntime().addShutdownHook(new Thread(store::close, "progress-shutdown"));
+            instance = store;
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the progress of a level.
+     *
+     * @param levelId The level id
+     * @return The progress record, or null if the level has never been played
+     */
+    synchronized Progress get(int levelId) {
+        return progressById.get(levelId);
+    }
+
+    /**
+     * Checks whether a catalog entry is completed, either in the log or by the completed
+     * flag that older versions stored in the catalog itself.
+     *
+     * @param level The catalog entry
+     * @return true if the level is completed
+     */
+    synchronized boolean isCompleted(LevelRecord level) {
+        Progress progress = progressById.get(level.id);
+        return (progress != null && progress.completed) || level.completed;
+    }
+
+    /**
+     * Records that a level was solved, keeping the faster of the new and the best time.
+     *
+     * @param levelId The level id
+     * @param board The solved cells in row-major order
+     * @param elapsedMillis The time taken to solve the level
+     */
+    synchronized void markCompleted(int levelId, int[] board, long elapsedMillis) {
+        Progress previous = progressById.get(levelId);
+        long bestTime = previous != null && previous.bestTimeMillis > 0
+                ? Math.min(previous.bestTimeMillis, elapsedMillis) : elapsedMillis;
+        append(new Progress(levelId, true, bestTime, board.clone()));
+    }
+
+    /**
+     * Records the board a player left a level with, so it can be restored later.
+     * Nothing is written if the board did not change.
+     *
+     * @param levelId The level id
+     * @param board The cells in row-major order
+     */
+    synchronized void saveBoard(int levelId, int[] board) {
+        Progress previous = progressById.get(levelId);
+        if (previous != null && Arrays.equals(previous.lastBoard, board)) {
+            return;
+        }
+        append(previous != null
+                ? new Progress(levelId, previous.completed, previous.bestTimeMillis, board.clone())
+                : new Progress(levelId, false, 0, board.clone()));
+    }
+
+    /**
+     * Updates the in-memory record and queues its line for the log.
+     * Called with the store's lock held.
+     *
+     * @param progress The new progress record
+     */
+    private void append(Progress progress) {
+        progressById.put(progress.levelId, progress);
+        String line = progress.toJson() + "\n";
+        writer.execute(() -> writeLine(line));
+    }
+
+    /**
+     * Appends one line to the log and forces it to disk. Runs on the writer thread.
+     *
+     * @param line The line to append, including the line break
+     */
+    private void writeLine(String line) {
+        try {
+            if (logChannel == null) {
+                logChannel = FileChannel.open(logPath, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                logChannel.write(buffer);
+            }
+            logChannel.force(false);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return;
+        }
+
+        boolean compact;
+        synchronized (this) {
+            logLines++;
+            compact = needsCompaction();
+        }
+        if (compact) {
+            compact();
+        }
+    }
+
+    /**
+     * Checks whether the log holds enough superseded lines to be worth compacting.
+     *
+     * @return true if the log should be compacted
+     */
+    private synchronized boolean needsCompaction() {
+        return logLines > progressById.size() + COMPACTION_SLACK;
+    }
+
+    /**
+     * Rewrites the log with one line per level and atomically replaces the old log.
+     * Runs on the writer thread, so no append can interleave with it.
+     */
+    private void compact() {
+        StringBuilder snapshot = new StringBuilder();
+        int lines;
+        synchronized (this) {
+            for (Progress progress : progressById.values()) {
+                snapshot.append(progress.toJson()).append('\n');
+            }
+            lines = progressById.size();
+        }
+
+        try {
+            if (logChannel != null) {
+                logChannel.close();
+                logChannel = null;
+            }
+            AtomicFileWriter.write(logPath, snapshot.toString());
+            synchronized (this) {
+                logLines = lines;
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Waits for queued appends to finish and closes the log.
+     */
+    void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                System.err.println("Progress log did not finish writing before shutdown");
+            }
+            if (logChannel != null) {
+                logChannel.close();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+}
@@ -3,18 +3,96 @@ package org.game;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import javax.swing.JButton;
 
 /**
  * A custom JButton with rounded corners and hover effects.
  * Supports selection state with a colored border and customizable corner radius.
+ * The rounded shape of each combination of size, radius, colours and selection is
+ * rendered once into an image that all buttons share, so a repaint is an image copy
+ * plus the text.
  */
 public class RoundedButton extends JButton {
+    /** Background shown while the pointer is over a button. */
+    static final Color HOVER_COLOUR = new Color(0x88F18B);
+
+    /** Number of rendered shapes kept before the least recently painted one is dropped. */
+    static final int IMAGE_CACHE_SIZE = 256;
+
+    /**
+     * Identifies one rendered shape. The border colour is only part of the key for
+     * selected buttons, since unselected buttons do not draw it.
+     */
+    private static final class ShapeKey {
+        final int width;
+        final int height;
+        final int radius;
+        final int scale;
+        final int background;
+        final boolean selected;
+        final int border;
+
+        /**
+         * Constructs a key.
+         *
+         * @param width The button width in user space
+         * @param height The button height in user space
+         * @param radius The corner radius
+         * @param scale The device scale the shape is rendered at
+         * @param background The background colour as ARGB
+         * @param selected Whether the button is selected
+         * @param border The border colour as ARGB, or 0 when not selected
+         */
+        ShapeKey(int width, int height, int radius, int scale, int background, boolean selected, int border) {
+            this.width = width;
+            this.height = height;
+            this.radius = radius;
+            this.scale = scale;
+            this.background = background;
+            this.selected = selected;
+            this.border = border;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ShapeKey)) {
+                return false;
+            }
+            ShapeKey key = (ShapeKey) other;
+            return width == key.width && height == key.height && radius == key.radius && scale == key.scale
+                    && background == key.background && selected == key.selected && border == key.border;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = width;
+            hash = 31 * hash + height;
+            hash = 31 * hash + radius;
+            hash = 31 * hash + scale;
+            hash = 31 * hash + background;
+            hash = 31 * hash + (selected ? 1 : 0);
+            return 31 * hash + border;
+        }
+    }
+
+    // Only touched from the event dispatch thread, which does all the painting
+    private static final Map<ShapeKey, Image> SHAPE_IMAGES =
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ShapeKey, Image> eldest) {
+                    return size() > IMAGE_CACHE_SIZE;
+                }
+            };
 
     boolean selected;
     Color borderColor;
     int cornerRadius = 0;
     Color backgroundColour;
+    boolean followsTheme;
+    int themeRegionId;
 
     /**
      * Sets the border colour for the button.
@@ -37,6 +115,33 @@ public class RoundedButton extends JButton {
         this.backgroundColour = colour;
     }
 
+    /**
+     * Makes the button take its background from the active colour theme each time it is
+     * painted, so switching themes only needs a repaint.
+     *
+     * @param regionId The region id whose theme colour to show
+     */
+    public void setThemeColour(int regionId) {
+        this.themeRegionId = regionId;
+        this.followsTheme = true;
+        setBgColour(ColourTheme.idToColour(regionId));
+    }
+
+    /**
+     * Returns the background colour, resolved from the active theme for buttons that
+     * follow it. A hover colour set on top of it still takes precedence.
+     *
+     * @return The background colour
+     */
+    @Override
+    public Color getBackground() {
+        Color background = super.getBackground();
+        if (followsTheme && background == backgroundColour) {
+            return ColourTheme.idToColour(themeRegionId);
+        }
+        return background;
+    }
+
     /**
      * Sets the corner radius for rounded edges.
      * Higher values create more rounded corners.
@@ -70,7 +175,7 @@ public class RoundedButton extends JButton {
             @Override
             public void mouseEntered(MouseEvent mouseEvent) {
                 // Change to green on hover
-                setBackground(Color.decode("0x88F18B"));
+                setBackground(HOVER_COLOUR);
                 repaint();
             }
 
@@ -89,26 +194,64 @@ public class RoundedButton extends JButton {
 
     /**
      * Custom painting for rounded button with border.
-     * Draws a coloured border when selected, then fills the interior.
+     * Copies the cached shape for the button's current state, then lets the superclass
+     * draw the text.
      *
      * @param g The Graphics context to paint on
      */
     @Override
     protected void paintComponent(Graphics g) {
-        Graphics2D g2 = (Graphics2D) g;
+        int width = getWidth();
+        int height = getHeight();
+        if (width > 0 && height > 0) {
+            Graphics2D g2 = (Graphics2D) g;
+            // Render at the device scale so the shape stays sharp on high density screens
+            int scale = Math.max(1, (int) Math.ceil(g2.getTransform().getScaleX()));
+            ShapeKey key = new ShapeKey(width, height, cornerRadius, scale, getBackground().getRGB(),
+                    selected, selected ? borderColor.getRGB() : 0);
+            Image shape = SHAPE_IMAGES.get(key);
+            if (shape == null) {
+                shape = renderShape(key);
+                SHAPE_IMAGES.put(key, shape);
+            }
+            g2.drawImage(shape, 0, 0, width, height, null);
+        }
+
+        super.paintComponent(g);
+    }
+
+    /**
+     * Renders a button shape: the border when selected, then the interior, slightly
+     * inset to show the border.
+     *
+     * @param key The shape to render
+     * @return A translucent image of the shape
+     */
+    private Image renderShape(ShapeKey key) {
+        int scale = key.scale;
+        int width = key.width * scale;
+        int height = key.height * scale;
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        BufferedImage image = configuration != null
+                ? configuration.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+        Graphics2D g2 = image.createGraphics();
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.scale(scale, scale);
+        int radius = key.radius;
 
         // Draw border if selected
-        g2.setColor(borderColor);
-        if (selected) {
-            g2.fillRoundRect(0, 0, getWidth(), getHeight(), cornerRadius, cornerRadius);
+        if (key.selected) {
+            g2.setColor(new Color(key.border, true));
+            g2.fillRoundRect(0, 0, key.width, key.height, radius, radius);
         }
 
         // Draw button background (slightly inset to show border)
-        g2.setColor(getBackground());
-        g2.fillRoundRect(3, 3, getWidth() - 6, getHeight() - 6, cornerRadius, cornerRadius);
-
-        super.paintComponent(g);
+        g2.setColor(new Color(key.background, true));
+        g2.fillRoundRect(3, 3, key.width - 6, key.height - 6, radius, radius);
+        g2.dispose();
+        return image;
     }
 
 }
@@ -2,20 +2,10 @@ package org.game;
 
 import java.awt.*;
 import java.awt.geom.RoundRectangle2D;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import javax.swing.plaf.basic.BasicSliderUI;
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import static org.game.FileManager.getUserDataPath;
 
 /**
  * A custom slider component for controlling music volume.
@@ -46,7 +36,8 @@ public class Slider extends JSlider implements ChangeListener {
 
     /**
      * Handles slider value changes.
-     * Updates the music player volume and saves the new value to preferences.
+     * Updates the music player volume and stores the new value in the preferences,
+     * which write it to disk once the slider has been still for a moment.
      *
      * @param event The change event from the slider
      */
@@ -55,30 +46,8 @@ public class Slider extends JSlider implements ChangeListener {
         // Update music player volume
         musicPlayer.changeVolume(getValue());
 
-        // Load current preferences
-        Path preferencesPath = getUserDataPath("Preferences.json");
-        String preferencesContent;
-        try {
-            preferencesContent = Files.readString(preferencesPath, StandardCharsets.UTF_8);
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
-        }
-        JSONArray preferences = new JSONArray(preferencesContent);
-
         // Update volume in preferences
-        JSONObject preferencesObject = preferences.getJSONObject(0);
-        preferencesObject.put("volume", getValue());
-        preferences.put(0, preferencesObject);
-
-        // Save updated preferences to file
-        try {
-            FileWriter writer = new FileWriter(
-                    getUserDataPath("Preferences.json").toFile(), false);
-            writer.write(preferences.toString());
-            writer.close();
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
-        }
+        PreferencesStore.get().putInt("volume", getValue());
     }
 
     /**
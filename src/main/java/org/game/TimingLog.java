@@ -0,0 +1,22 @@
+package org.game;
+
+/**
+ * Opt-in timing output for measuring startup and screen changes.
+ * Nothing is printed unless the game runs with -Damoebae.timing=true.
+ */
+public class TimingLog {
+    /** Whether timings are printed. */
+    static final boolean ENABLED = Boolean.getBoolean("amoebae.timing");
+
+    /**
+     * Prints one timing line when timing is enabled.
+     *
+     * @param format The format string, without the trailing line separator
+     * @param args The format arguments
+     */
+    static void log(String format, Object... args) {
+        if (ENABLED) {
+            System.out.printf(format + "%n", args);
+        }
+    }
+}